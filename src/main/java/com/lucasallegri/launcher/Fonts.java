@@ -37,7 +37,7 @@ public class Fonts {
     InputStream fontMedBigIs;
     InputStream fontMedGiantIs;
 
-    if (Settings.lang.equalsIgnoreCase("jp")) {
+    if (Settings.lang.get().equalsIgnoreCase("jp")) {
       fontRegIs = LauncherGUI.class.getResourceAsStream(fontPathRegularJP);
       fontRegBigIs = LauncherGUI.class.getResourceAsStream(fontPathRegularJP);
       fontMedIs = LauncherGUI.class.getResourceAsStream(fontPathMediumJP);
@@ -45,14 +45,14 @@ public class Fonts {
       fontMedBigIs = LauncherGUI.class.getResourceAsStream(fontPathMediumJP);
       fontMedGiantIs = LauncherGUI.class.getResourceAsStream(fontPathMediumJP);
       sizeMultiplier = 1.1f;
-    } else if (Settings.lang.equalsIgnoreCase("ar")) {
+    } else if (Settings.lang.get().equalsIgnoreCase("ar")) {
       fontRegIs = LauncherGUI.class.getResourceAsStream(fontPathRegularAR);
       fontRegBigIs = LauncherGUI.class.getResourceAsStream(fontPathRegularAR);
       fontMedIs = LauncherGUI.class.getResourceAsStream(fontPathMediumAR);
       fontMedItaIs = LauncherGUI.class.getResourceAsStream(fontPathMediumAR);
       fontMedBigIs = LauncherGUI.class.getResourceAsStream(fontPathMediumAR);
       fontMedGiantIs = LauncherGUI.class.getResourceAsStream(fontPathMediumAR);
-    } else if (Settings.lang.equalsIgnoreCase("zh-hans")) {
+    } else if (Settings.lang.get().equalsIgnoreCase("zh-hans")) {
       fontRegIs = LauncherGUI.class.getResourceAsStream(fontPathRegularZHCN);
       fontRegBigIs = LauncherGUI.class.getResourceAsStream(fontPathRegularZHCN);
       fontMedIs = LauncherGUI.class.getResourceAsStream(fontPathMediumZHCN);
@@ -60,7 +60,7 @@ public class Fonts {
       fontMedBigIs = LauncherGUI.class.getResourceAsStream(fontPathMediumZHCN);
       fontMedGiantIs = LauncherGUI.class.getResourceAsStream(fontPathMediumZHCN);
       sizeMultiplier = 1.2f;
-    } else if (Settings.lang.equalsIgnoreCase("zh-hant")) {
+    } else if (Settings.lang.get().equalsIgnoreCase("zh-hant")) {
       fontRegIs = LauncherGUI.class.getResourceAsStream(fontPathRegularZHTR);
       fontRegBigIs = LauncherGUI.class.getResourceAsStream(fontPathRegularZHTR);
       fontMedIs = LauncherGUI.class.getResourceAsStream(fontPathMediumZHTR);
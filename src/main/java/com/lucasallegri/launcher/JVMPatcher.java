@@ -2,7 +2,6 @@ package com.lucasallegri.launcher;
 
 import com.lucasallegri.dialog.DialogError;
 import com.lucasallegri.launcher.settings.Settings;
-import com.lucasallegri.launcher.settings.SettingsProperties;
 import com.lucasallegri.util.ColorUtil;
 import com.lucasallegri.util.Compressor;
 import com.lucasallegri.util.FileUtil;
@@ -181,12 +180,7 @@ public class JVMPatcher extends BaseGUI {
   }
 
   private static void initPatcher() {
-    Thread patchThread = new Thread(new Runnable() {
-      public void run() {
-        patch();
-      }
-    });
-    patchThread.start();
+    TaskScheduler.submit("jvm-patch", TaskScheduler.Pool.PATCHER, JVMPatcher::patch);
   }
 
   private static void patch() {
@@ -253,7 +247,7 @@ public class JVMPatcher extends BaseGUI {
   }
 
   private static void finish() {
-    SettingsProperties.setValue("launcher.jvm_patched", "true");
+    Settings.jvmPatched.set(true);
     Modules.setupJarExe();
     ProcessUtil.run(new String[]{"java", "-jar", LauncherGlobals.USER_DIR + "\\KnightLauncher.jar"}, true);
     jvmPatcherFrame.dispose();
@@ -4,6 +4,7 @@ import com.lucasallegri.dialog.DialogWarning;
 import com.lucasallegri.discord.DiscordRPC;
 import com.lucasallegri.launcher.mods.ModListGUI;
 import com.lucasallegri.launcher.mods.ModLoader;
+import com.lucasallegri.launcher.mods.ModWatcher;
 import com.lucasallegri.launcher.settings.Settings;
 import com.lucasallegri.launcher.settings.SettingsGUI;
 import com.lucasallegri.launcher.settings.SettingsProperties;
@@ -144,7 +145,7 @@ public class LauncherApp {
 
   // Create a shortcut to the application if there's none.
   private void checkShortcut() {
-    if (Settings.createShortcut
+    if (Settings.createShortcut.get()
             && !FileUtil.fileExists(DesktopUtil.getPathToDesktop() + "/" + LauncherGlobals.SHORTCUT_FILE_NAME)) {
 
       BufferedImage bimg = ImageUtil.loadImageWithinJar("/img/icon-128.png");
@@ -169,7 +170,7 @@ public class LauncherApp {
     try {
       UIManager.setLookAndFeel(new MaterialLookAndFeel());
 
-      if ("dark".equals(Settings.launcherStyle)) {
+      if ("dark".equals(Settings.launcherStyle.get())) {
         MaterialLookAndFeel.changeTheme(new JMarsDarkTheme());
       } else {
         MaterialLookAndFeel.changeTheme(new MaterialLiteTheme());
@@ -228,9 +229,8 @@ public class LauncherApp {
 
     // Check if there's already a 64-bit Java VM in the game's directory or if it already has been installed by Knight Launcher.
     if(JavaUtil.determineJVMArch(LauncherGlobals.USER_DIR + "\\java_vm\\bin\\java.exe") == 64 ||
-    Settings.jvmPatched) {
-      Settings.jvmPatched = true;
-      SettingsProperties.setValue("launcher.jvm_patched", "true");
+    Settings.jvmPatched.get()) {
+      Settings.jvmPatched.set(true);
       return false;
     }
 
@@ -238,12 +238,13 @@ public class LauncherApp {
   }
 
   private void postInitialization() {
+    ModLoader.recover();
     ModLoader.checkInstalled();
-    if (Settings.doRebuilds && ModLoader.rebuildRequired) ModLoader.startFileRebuild();
-    if (Settings.useIngameRPC) Modules.setupIngameRPC();
-    if (!FileUtil.fileExists(LauncherGlobals.USER_DIR + "\\KnightLauncher\\modules\\safeguard\\bundle.zip")) {
-      ModLoader.extractSafeguard();
-    }
+    if (Settings.doRebuilds.get() && ModLoader.rebuildRequired) ModLoader.startFileRebuild();
+    ModWatcher.start();
+    if (Settings.useIngameRPC.get()) Modules.setupIngameRPC();
+    // Cheap when it's already in place, only files that changed get written.
+    ModLoader.extractSafeguard();
     Modules.setupJarExe();
 
     DiscordRPC.getInstance().setDetails(Locale.getValue("presence.launch_ready", String.valueOf(ModLoader.getEnabledModCount())));
@@ -251,7 +252,7 @@ public class LauncherApp {
   }
 
   private void loadOnlineAssets() {
-    Thread onlineAssetsThread = new Thread(() -> {
+    TaskScheduler.submit("online-assets", TaskScheduler.Pool.NET, () -> {
 
       checkVersion();
       getProjectXVersion();
@@ -272,13 +273,13 @@ public class LauncherApp {
         LauncherGUI.tweetsContainer.setText(Locale.getValue("error.tweets_retrieve"));
       } else {
         String styledTweets = tweets.replaceFirst("FONT_FAMILY", LauncherGUI.tweetsContainer.getFont().getFamily())
-            .replaceFirst("COLOR", Settings.launcherStyle.equals("dark") ? "#ffffff" : "#000000");
+            .replaceFirst("COLOR", Settings.launcherStyle.get().equals("dark") ? "#ffffff" : "#000000");
         LauncherGUI.tweetsContainer.setContentType("text/html");
         LauncherGUI.tweetsContainer.setText(styledTweets);
       }
 
       Image eventImage;
-      String eventImageLang = Settings.lang.startsWith("es") ? "es" : "en";
+      String eventImageLang = Settings.lang.get().startsWith("es") ? "es" : "en";
       eventImage = ImageUtil.getImageFromURL(LauncherGlobals.CDN_URL_V1 + "event_" + eventImageLang + ".png", 525, 305);
       if (eventImage == null) {
         LauncherGUI.imageContainer.setText(Locale.getValue("error.event_image_missing"));
@@ -288,7 +289,6 @@ public class LauncherApp {
         LauncherGUI.imageContainer.setIcon(new ImageIcon(eventImage));
       }
     });
-    onlineAssetsThread.start();
   }
 
   private void checkVersion() {
@@ -325,7 +325,7 @@ public class LauncherApp {
   private void getProjectXVersion() {
     URL url = null;
     try {
-      url = new URL(Settings.gameGetdownFullURL + "getdown.txt");
+      url = new URL(Settings.gameGetdownFullURL.get() + "getdown.txt");
     } catch (MalformedURLException e) {
       log.error(e);
     }
@@ -16,12 +16,12 @@ public class LauncherEventHandler {
 
   public static void launchGameEvent() {
 
-    Thread launchThread = new Thread(() -> {
+    // Whatever rebuild or mount is pending has to be on disk before the game starts.
+    TaskScheduler.submit("launch", TaskScheduler.Pool.LAUNCH, () -> {
 
-      if (ModLoader.mountRequired) ModLoader.mount();
       GameSettings.load();
 
-      if (Settings.gamePlatform.startsWith("Steam")) {
+      if (Settings.gamePlatform.get().startsWith("Steam")) {
 
         try {
           SteamUtil.startGameById(99900);
@@ -39,23 +39,22 @@ public class LauncherEventHandler {
 
       }
 
-      log.info("Starting game", "platform", Settings.gamePlatform);
+      log.info("Starting game", "platform", Settings.gamePlatform.get());
 
       DiscordRPC.getInstance().stop();
-      if (Settings.useIngameRPC) ProcessUtil.run(RPC_COMMAND_LINE, true);
-      if (!Settings.keepOpen) {
+      if (Settings.useIngameRPC.get()) ProcessUtil.run(RPC_COMMAND_LINE, true);
+      if (!Settings.keepOpen.get()) {
         LauncherGUI.launcherGUIFrame.dispose();
         System.exit(1);
       }
 
-    });
-    launchThread.start();
+    }, ModLoader.startMount());
 
   }
 
   public static void launchGameAltEvent() {
 
-    Thread launchAltThread = new Thread(() -> {
+    TaskScheduler.submit("launch-alt", TaskScheduler.Pool.LAUNCH, () -> {
 
       if (!SystemUtil.isWindows()) {
         ProcessUtil.run(LauncherGlobals.ALT_CLIENT_ARGS, true);
@@ -66,7 +65,6 @@ public class LauncherEventHandler {
       DiscordRPC.getInstance().stop();
 
     });
-    launchAltThread.start();
 
   }
 
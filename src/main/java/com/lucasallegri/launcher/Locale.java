@@ -5,14 +5,17 @@ import com.lucasallegri.launcher.settings.Settings;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
-import java.util.Properties;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static com.lucasallegri.launcher.Log.log;
 
 public class Locale {
 
-  private static final Properties prop = new Properties();
-  private static InputStream propStream = null;
+  private static final String FALLBACK_LANG = "en";
+
+  private static volatile Catalog catalog = new Catalog(new String[0], new String[0]);
 
   public static String[] AVAILABLE_LANGUAGES = {
           "English",
@@ -30,46 +33,86 @@ public class Locale {
           "Chinese (Traditional)",
   };
 
+  /**
+   * Loads the selected language once, from the compiled catalog when there is one. Keys it doesn't have
+   * are taken from English.
+   */
   public static void setup() {
-    propStream = Locale.class.getResourceAsStream("/lang/lang_" + Settings.lang + ".properties");
+    LocaleCatalog compiled = LocaleCatalog.load(Settings.lang.get());
+    if (compiled != null) {
+      catalog = new Catalog(compiled.keys, compiled.values);
+      return;
+    }
+
+    Map<String, String> messages = read(FALLBACK_LANG);
+    if (!FALLBACK_LANG.equals(Settings.lang.get())) messages.putAll(read(Settings.lang.get()));
+    String[] keys = messages.keySet().toArray(new String[0]);
+    String[] values = new String[keys.length];
+    for (int i = 0; i < keys.length; i++) values[i] = messages.get(keys[i]);
+    catalog = new Catalog(keys, values);
   }
 
   public static String getValue(String key) {
-    String value = null;
-    try {
-      prop.load(propStream);
-      value = prop.getProperty(key);
-    } catch (IOException e) {
-      log.error(e);
-    }
-    if (value != null) return value.substring(1, value.length() - 1);
-    return key;
+    int id = catalog.id(key);
+    return id < 0 ? key : catalog.values[id];
   }
 
   public static String getValue(String key, String arg) {
-    String value = null;
-    try {
-      prop.load(propStream);
-      value = prop.getProperty(key);
-      if (value != null) value = MessageFormat.format(prop.getProperty(key), arg);
-    } catch (IOException e) {
-      log.error(e);
-    }
-    if (value != null) return value.substring(1, value.length() - 1);
-    return key;
+    return getValue(key, new String[] { arg });
   }
 
   public static String getValue(String key, String[] args) {
-    String value = null;
-    try {
-      prop.load(propStream);
-      value = prop.getProperty(key);
-      if (value != null) value = MessageFormat.format(prop.getProperty(key), (Object[]) args);
+    MessageFormat format = catalog.format(key);
+    if (format == null) return key;
+    // MessageFormat isn't thread-safe, and the same one may be used from the EDT and from background tasks.
+    synchronized (format) {
+      return format.format(args);
+    }
+  }
+
+  private static Map<String, String> read(String lang) {
+    try (InputStream is = Locale.class.getResourceAsStream("/lang/lang_" + lang + ".properties")) {
+      if (is == null) {
+        log.warning("Missing language file", "lang", lang);
+        return new HashMap<>();
+      }
+      return LocaleCatalog.parse(is);
     } catch (IOException e) {
       log.error(e);
+      return new HashMap<>();
+    }
+  }
+
+  private static class Catalog {
+    private final Map<String, Integer> ids;
+    private final String[] values;
+    private final AtomicReferenceArray<MessageFormat> formats;
+
+    private Catalog(String[] keys, String[] values) {
+      this.ids = new HashMap<>(keys.length * 2);
+      for (int i = 0; i < keys.length; i++) this.ids.put(keys[i], i);
+      this.values = values;
+      this.formats = new AtomicReferenceArray<>(values.length);
+    }
+
+    private int id(String key) {
+      Integer id = this.ids.get(key);
+      return id == null ? -1 : id;
+    }
+
+    /**
+     * Compiled the first time a key is formatted, null if there's no such key.
+     */
+    private MessageFormat format(String key) {
+      int id = id(key);
+      if (id < 0) return null;
+      MessageFormat format = this.formats.get(id);
+      if (format == null) {
+        this.formats.compareAndSet(id, null, new MessageFormat(this.values[id]));
+        format = this.formats.get(id);
+      }
+      return format;
     }
-    if (value != null) return value.substring(1, value.length() - 1);
-    return key;
   }
 
   public static String getLangName(String code) {
@@ -0,0 +1,161 @@
+package com.lucasallegri.launcher;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+import static com.lucasallegri.launcher.Log.log;
+
+/**
+ * The language files compiled into one binary resource, so startup doesn't parse any .properties.
+ *
+ * Every language shares a single key table taken from English, so a key's position is its id in all of them.
+ * Keys a language doesn't translate already hold the English value. Run {@link #main} to compile the catalog,
+ * which also reports what each language is missing. The catalog is kept next to the language files in assets/lang
+ * so every build ships it, and has to be compiled again whenever they change. LocaleCatalogTest fails until it is.
+ */
+public class LocaleCatalog {
+
+  static final String RESOURCE = "/lang/catalog.bin";
+
+  private static final int MAGIC = 0x4B4C4C43; // "KLLC"
+  private static final int VERSION = 1;
+  private static final String FALLBACK_LANG = "en";
+
+  final String[] keys;
+  final String[] values;
+
+  private LocaleCatalog(String[] keys, String[] values) {
+    this.keys = keys;
+    this.values = values;
+  }
+
+  /**
+   * @return the compiled language, or null if there's no compiled catalog or it doesn't have the language.
+   */
+  static LocaleCatalog load(String lang) {
+    try (InputStream is = LocaleCatalog.class.getResourceAsStream(RESOURCE)) {
+      return is == null ? null : load(is, lang);
+    } catch (IOException e) {
+      log.error("Failed to read locale catalog", e);
+      return null;
+    }
+  }
+
+  static LocaleCatalog load(InputStream is, String lang) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      log.warning("Ignoring locale catalog with unknown format");
+      return null;
+    }
+
+    String[] keys = new String[in.readInt()];
+    for (int i = 0; i < keys.length; i++) keys[i] = in.readUTF();
+
+    int langCount = in.readInt();
+    long skip = 0;
+    boolean found = false;
+    for (int i = 0; i < langCount; i++) {
+      String code = in.readUTF();
+      int length = in.readInt();
+      if (code.equals(lang)) found = true;
+      if (!found) skip += length;
+    }
+    if (!found) return null;
+
+    while (skip > 0) {
+      int skipped = in.skipBytes((int) Math.min(skip, Integer.MAX_VALUE));
+      if (skipped <= 0) throw new EOFException();
+      skip -= skipped;
+    }
+    String[] values = new String[keys.length];
+    for (int i = 0; i < values.length; i++) values[i] = in.readUTF();
+    return new LocaleCatalog(keys, values);
+  }
+
+  /**
+   * Every value of a language file, with the quotes around them already stripped.
+   */
+  static Map<String, String> parse(InputStream is) throws IOException {
+    Properties prop = new Properties();
+    prop.load(is);
+    Map<String, String> messages = new HashMap<>();
+    for (String key : prop.stringPropertyNames()) {
+      String value = prop.getProperty(key);
+      if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) value = value.substring(1, value.length() - 1);
+      messages.put(key, value);
+    }
+    return messages;
+  }
+
+  /**
+   * Compiles every lang_*.properties in a directory into a catalog and prints the keys each language is missing.
+   * Usage: {@code LocaleCatalog <langDir> <output> [--report|--strict]}, strict fails when any key is missing.
+   * Failures are thrown rather than exiting, the build runs this inside its own JVM.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].equals("--report") && !args[2].equals("--strict"))) {
+      throw new IllegalArgumentException("Usage: LocaleCatalog <langDir> <output> [--report|--strict]");
+    }
+    File dir = new File(args[0]);
+    boolean strict = args.length == 3 && args[2].equals("--strict");
+
+    SortedMap<String, Map<String, String>> langs = new TreeMap<>();
+    File[] files = dir.listFiles((d, name) -> name.startsWith("lang_") && name.endsWith(".properties"));
+    if (files == null) throw new FileNotFoundException(dir.getPath());
+    for (File file : files) {
+      String code = file.getName().substring("lang_".length(), file.getName().length() - ".properties".length());
+      try (InputStream is = new FileInputStream(file)) {
+        langs.put(code, parse(is));
+      }
+    }
+    Map<String, String> fallback = langs.get(FALLBACK_LANG);
+    if (fallback == null) throw new FileNotFoundException("lang_" + FALLBACK_LANG + ".properties");
+    String[] keys = new TreeSet<>(fallback.keySet()).toArray(new String[0]);
+
+    int missingTotal = 0;
+    ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+    ByteArrayOutputStream table = new ByteArrayOutputStream();
+    DataOutputStream tableOut = new DataOutputStream(table);
+    for (Map.Entry<String, Map<String, String>> lang : langs.entrySet()) {
+      List<String> missing = new ArrayList<>();
+      ByteArrayOutputStream block = new ByteArrayOutputStream();
+      DataOutputStream blockOut = new DataOutputStream(block);
+      for (String key : keys) {
+        String value = lang.getValue().get(key);
+        if (value == null) {
+          missing.add(key);
+          value = fallback.get(key);
+        }
+        blockOut.writeUTF(value);
+      }
+      blockOut.flush();
+      tableOut.writeUTF(lang.getKey());
+      tableOut.writeInt(block.size());
+      block.writeTo(blocks);
+
+      Set<String> unknown = new TreeSet<>(lang.getValue().keySet());
+      unknown.removeAll(fallback.keySet());
+      missingTotal += missing.size();
+      System.out.println("lang_" + lang.getKey() + ": " + missing.size() + " missing" + (missing.isEmpty() ? "" : " " + missing)
+          + (unknown.isEmpty() ? "" : ", " + unknown.size() + " not in " + FALLBACK_LANG + " " + unknown));
+    }
+    tableOut.flush();
+
+    File output = new File(args[1]);
+    if (output.getParentFile() != null) output.getParentFile().mkdirs();
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(keys.length);
+      for (String key : keys) out.writeUTF(key);
+      out.writeInt(langs.size());
+      table.writeTo(out);
+      blocks.writeTo(out);
+    }
+    System.out.println("Compiled " + langs.size() + " languages, " + keys.length + " keys into " + output);
+
+    if (strict && missingTotal > 0) throw new IllegalStateException(missingTotal + " translations missing");
+  }
+
+}
@@ -1,6 +1,6 @@
 package com.lucasallegri.launcher;
 
-import com.lucasallegri.launcher.settings.SettingsProperties;
+import com.lucasallegri.launcher.settings.Settings;
 import com.lucasallegri.util.Compressor;
 import com.lucasallegri.util.FileUtil;
 import com.lucasallegri.util.SystemUtil;
@@ -18,13 +18,13 @@ public class Modules {
         FileUtil.extractFileWithinJar("/modules/skdiscordrpc/bundle.zip", LauncherGlobals.USER_DIR + "\\KnightLauncher\\modules\\skdiscordrpc\\bundle.zip");
         Compressor.unzip(LauncherGlobals.USER_DIR + "\\KnightLauncher\\modules\\skdiscordrpc\\bundle.zip", LauncherGlobals.USER_DIR + "\\KnightLauncher\\modules\\skdiscordrpc\\", false);
         FileUtil.deleteFile(LauncherGlobals.USER_DIR + "\\KnightLauncher\\modules\\skdiscordrpc\\bundle.zip");
-        SettingsProperties.setValue("launcher.ingameRPCSetup", "true");
+        Settings.ingameRPCSetup.set(true);
       } catch (IOException e) {
         log.error(e);
       }
     } else {
-      SettingsProperties.setValue("launcher.ingameRPCSetup", "true");
-      SettingsProperties.setValue("launcher.useIngameRPC", "false");
+      Settings.ingameRPCSetup.set(true);
+      Settings.useIngameRPC.set(false);
     }
   }
 
@@ -5,6 +5,7 @@ import static com.lucasallegri.launcher.Log.log;
 public class ProgressBar {
 
   private static int activeTasks = 0;
+  private static volatile long shownSecondsLeft = -1;
 
   public static void setState(String newState) {
     LauncherGUI.launchState.setText(newState);
@@ -22,6 +23,7 @@ public class ProgressBar {
     if(activeTasks == 0) {
       showState(false);
       showBar(false);
+      showTimeLeft(-1);
     }
   }
 
@@ -33,6 +35,32 @@ public class ProgressBar {
     LauncherGUI.launchProgressBar.setMaximum(n);
   }
 
+  /**
+   * Byte counts easily overflow the bar's int range, so they're shown as a permille of the total.
+   */
+  public static void setBarBytes(long done, long total) {
+    setBarMax(1000);
+    setBarValue(total <= 0 ? 1000 : (int) Math.min(1000, done * 1000 / total));
+  }
+
+  /**
+   * Same as {@link #setBarBytes(long, long)}, with the time left written on the bar. Negative if unknown.
+   */
+  public static void setBarBytes(long done, long total, long millisLeft) {
+    setBarBytes(done, total);
+    showTimeLeft(millisLeft < 0 ? -1 : (millisLeft + 999) / 1000);
+  }
+
+  private static void showTimeLeft(long secondsLeft) {
+    // Workers report progress for every file, only bother Swing when the text actually changes.
+    if (secondsLeft == shownSecondsLeft) return;
+    shownSecondsLeft = secondsLeft;
+    LauncherGUI.launchProgressBar.setStringPainted(secondsLeft >= 0);
+    if (secondsLeft >= 0) {
+      LauncherGUI.launchProgressBar.setString(String.format("~%d:%02d", secondsLeft / 60, secondsLeft % 60));
+    }
+  }
+
   private static void showState(boolean show) {
     LauncherGUI.launchState.setVisible(show);
   }
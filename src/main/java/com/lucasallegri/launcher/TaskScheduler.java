@@ -0,0 +1,183 @@
+package com.lucasallegri.launcher;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.lucasallegri.launcher.Log.log;
+
+/**
+ * Runs the launcher's background work on a few named, bounded pools instead of a new thread per job.
+ *
+ * Tasks can wait for others to finish first, and won't run if one of those failed or got cancelled. Only tasks still
+ * waiting can be cancelled, one that started is always left to finish.
+ * Submitting a task while another one with the same name is still waiting to start returns the waiting one,
+ * so repeated clicks don't queue up the same work. Every task is timed, with running totals per name in the log.
+ */
+public class TaskScheduler {
+
+  public enum Pool {
+    /** Anything touching rsrc. A single thread, so rebuilds and mounts never overlap. */
+    MODS(1),
+    /** Starting the game. */
+    LAUNCH(1),
+    /** Fetching things from the internet. */
+    NET(2),
+    /** Patching the Java VM. */
+    PATCHER(1);
+
+    private final int threads;
+
+    Pool(int threads) {
+      this.threads = threads;
+    }
+  }
+
+  private static final Map<Pool, ExecutorService> executors = new EnumMap<>(Pool.class);
+  private static final Map<String, Task> waiting = new HashMap<>();
+  private static final Map<String, Metrics> metrics = new TreeMap<>();
+
+  /**
+   * Runs the given work on the given pool once every task in {@code after} has finished successfully.
+   * Null dependencies are ignored.
+   *
+   * @return the task, or the one with the same name that was already waiting to start.
+   */
+  public static synchronized Task submit(String name, Pool pool, Runnable work, Task... after) {
+    Task pending = waiting.get(name);
+    if (pending != null) {
+      log.info("Coalescing task with one already waiting", "task", name);
+      return pending;
+    }
+
+    Task task = new Task(name, pool, work);
+    waiting.put(name, task);
+
+    List<CompletableFuture<Void>> deps = new ArrayList<>();
+    for (Task dep : after) {
+      if (dep != null) deps.add(dep.future);
+    }
+    CompletableFuture.allOf(deps.toArray(new CompletableFuture<?>[0])).whenComplete((v, error) -> {
+      if (error != null) {
+        log.warning("Not running task, a task it depends on didn't complete", "task", name, "cause", error);
+        task.cancel();
+      } else {
+        executor(pool).execute(task::run);
+      }
+    });
+    return task;
+  }
+
+  private static synchronized ExecutorService executor(Pool pool) {
+    return executors.computeIfAbsent(pool, p -> {
+      AtomicInteger count = new AtomicInteger();
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(p.threads, p.threads, 30, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(), r -> new Thread(r, "kl-" + p.name().toLowerCase(java.util.Locale.ROOT) + "-" + count.incrementAndGet()));
+      // Idle pools shouldn't keep the launcher alive once its window is gone.
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    });
+  }
+
+  private static synchronized void started(Task task) {
+    if (waiting.get(task.name) == task) waiting.remove(task.name);
+  }
+
+  private static synchronized String finished(Task task, long waitedMillis, long ranMillis, boolean failed) {
+    Metrics m = metrics.computeIfAbsent(task.name, k -> new Metrics());
+    m.record(waitedMillis, ranMillis, failed);
+    return m.toString();
+  }
+
+  public static class Task {
+
+    private enum State { WAITING, RUNNING, DONE, CANCELLED }
+
+    private final String name;
+    private final Pool pool;
+    private final Runnable work;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final long submittedAt = System.currentTimeMillis();
+    private State state = State.WAITING;
+
+    private Task(String name, Pool pool, Runnable work) {
+      this.name = name;
+      this.pool = pool;
+      this.work = work;
+    }
+
+    private void run() {
+      synchronized (this) {
+        if (this.state != State.WAITING) return;
+        this.state = State.RUNNING;
+      }
+      started(this);
+
+      long startedAt = System.currentTimeMillis();
+      Throwable failure = null;
+      try {
+        this.work.run();
+      } catch (Throwable t) {
+        failure = t;
+        log.error("Task failed", "task", this.name, t);
+      }
+      long ranMillis = System.currentTimeMillis() - startedAt;
+
+      synchronized (this) {
+        this.state = State.DONE;
+      }
+      String totals = finished(this, startedAt - this.submittedAt, ranMillis, failure != null);
+      log.info("Task finished", "task", this.name, "pool", this.pool, "millis", ranMillis,
+          "waitedMillis", startedAt - this.submittedAt, "totals", totals);
+      if (failure == null) {
+        this.future.complete(null);
+      } else {
+        this.future.completeExceptionally(failure);
+      }
+    }
+
+    /**
+     * Keeps the task from running if it hasn't started yet, tasks depending on it won't run either.
+     * A task that already started is left to finish, rsrc work can't be stopped halfway safely.
+     */
+    public void cancel() {
+      synchronized (this) {
+        if (this.state != State.WAITING) return;
+        this.state = State.CANCELLED;
+      }
+      started(this);
+      log.info("Task cancelled", "task", this.name);
+      this.future.cancel(false);
+    }
+
+    /**
+     * Completes once the task did, exceptionally if it failed or got cancelled.
+     */
+    public CompletableFuture<Void> getFuture() {
+      return this.future;
+    }
+  }
+
+  private static class Metrics {
+    private int runs;
+    private int failures;
+    private long totalMillis;
+    private long maxMillis;
+    private long totalWaitedMillis;
+
+    private void record(long waitedMillis, long ranMillis, boolean failed) {
+      this.runs++;
+      if (failed) this.failures++;
+      this.totalMillis += ranMillis;
+      this.maxMillis = Math.max(this.maxMillis, ranMillis);
+      this.totalWaitedMillis += waitedMillis;
+    }
+
+    @Override
+    public String toString() {
+      return "[runs=" + this.runs + ",failures=" + this.failures + ",totalMillis=" + this.totalMillis
+          + ",maxMillis=" + this.maxMillis + ",totalWaitedMillis=" + this.totalWaitedMillis + "]";
+    }
+  }
+
+}
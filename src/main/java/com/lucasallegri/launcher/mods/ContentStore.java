@@ -0,0 +1,217 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.LauncherGlobals;
+import com.lucasallegri.util.FileUtil;
+import com.lucasallegri.util.StreamUtil;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Content-addressed store of decompressed mod files under KnightLauncher/store, keyed by CRC32 and size.
+ *
+ * Mod files are inflated into the store once and placed into rsrc from there, either as hard links or as plain
+ * channel copies, so mounting content the store already holds never has to open a mod archive.
+ * The store is bounded: entries are evicted least recently used first once it grows over its budget.
+ *
+ * Every stored file gets the same fixed modification time. Hard links share it, so if anything ever writes into
+ * a linked rsrc file in place, the change shows in the store and the damaged copy is thrown away instead of reused.
+ */
+public class ContentStore {
+
+  private static final int MAGIC = 0x4B4C5349; // "KLSI"
+  private static final int VERSION = 1;
+
+  private static final String STORE_PATH = LauncherGlobals.USER_DIR + "/KnightLauncher/store/";
+  private static final String INDEX_PATH = STORE_PATH + "lru.index";
+  private static final long STORE_MTIME = 946684800000L; // 2000-01-01
+
+  private static final Map<String, Long> lastUsed = new ConcurrentHashMap<>();
+  private static boolean loaded = false;
+  private static volatile boolean linksSupported = true;
+
+  /**
+   * Returns the stored file with the given content, or null if the store doesn't have it (anymore).
+   */
+  public static File get(long crc, long size) {
+    File file = file(crc, size);
+    if (!file.isFile()) return null;
+    if (file.length() != size || file.lastModified() != STORE_MTIME) {
+      log.warning("Discarding modified store entry", "file", file.getName());
+      file.delete();
+      return null;
+    }
+    touch(crc, size);
+    return file;
+  }
+
+  /**
+   * Whether the store has the given content, without counting as a use of it.
+   */
+  public static boolean contains(long crc, long size) {
+    File file = file(crc, size);
+    return file.isFile() && file.length() == size && file.lastModified() == STORE_MTIME;
+  }
+
+  /**
+   * Stores the given stream, checking it has the expected content.
+   */
+  public static File put(InputStream in, long crc, long size) throws IOException {
+    File file = file(crc, size);
+    File temp = new File(file.getPath() + FileUtil.TEMP_SUFFIX + Thread.currentThread().getId());
+    file.getParentFile().mkdirs();
+    try {
+      CRC32 check = new CRC32();
+      try (OutputStream out = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(temp)), check)) {
+        StreamUtil.copy(in, out);
+      }
+      if (check.getValue() != crc || temp.length() != size) throw new IOException("Content doesn't match its key");
+      temp.setLastModified(STORE_MTIME);
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      temp.delete();
+    }
+    touch(crc, size);
+    return file;
+  }
+
+  /**
+   * Puts a stored file at the target path, as a hard link if asked and possible, as a copy otherwise.
+   * The target is replaced atomically either way.
+   */
+  public static void place(File stored, File target, boolean link) throws IOException {
+    if (link && linksSupported) {
+      Path temp = Paths.get(target.getPath() + FileUtil.TEMP_SUFFIX);
+      try {
+        Files.deleteIfExists(temp);
+        Files.createLink(temp, stored.toPath());
+        Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return;
+      } catch (UnsupportedOperationException | FileSystemException e) {
+        Files.deleteIfExists(temp);
+        // Not going to work any better on the next file, copy from now on.
+        log.warning("Hard links not available, copying from the store instead", "cause", e);
+        linksSupported = false;
+      }
+    }
+    FileUtil.copyAtomically(stored, target);
+  }
+
+  /**
+   * Marks the given content as just used, so it's the last to go when the store is trimmed.
+   * Content the store doesn't hold is ignored, it takes no room.
+   */
+  public static void touch(long crc, long size) {
+    load();
+    String key = key(crc, size);
+    if (lastUsed.containsKey(key) || file(key).isFile()) lastUsed.put(key, System.currentTimeMillis());
+  }
+
+  /**
+   * Evicts the least recently used entries until the store fits in the given budget, then saves the usage index.
+   */
+  public static synchronized void trim(long budgetBytes) {
+    load();
+    List<Map.Entry<String, Long>> entries = new ArrayList<>();
+    Map<String, Long> sizes = new HashMap<>();
+    long total = 0;
+    for (Map.Entry<String, Long> e : lastUsed.entrySet()) {
+      // Only what's actually on disk counts, entries deleted behind our back are forgotten.
+      File file = file(e.getKey());
+      if (!file.isFile()) continue;
+      entries.add(e);
+      sizes.put(e.getKey(), file.length());
+      total += file.length();
+    }
+    lastUsed.keySet().retainAll(sizes.keySet());
+
+    if (total > budgetBytes) {
+      entries.sort(Map.Entry.comparingByValue());
+      int evicted = 0;
+      for (Map.Entry<String, Long> e : entries) {
+        if (total <= budgetBytes) break;
+        file(e.getKey()).delete();
+        lastUsed.remove(e.getKey());
+        total -= sizes.get(e.getKey());
+        evicted++;
+      }
+      log.info("Trimmed mod store", "evicted", evicted, "bytes", total, "budget", budgetBytes);
+    }
+    save();
+  }
+
+  private static void save() {
+    File file = new File(INDEX_PATH);
+    File temp = new File(INDEX_PATH + FileUtil.TEMP_SUFFIX);
+    file.getParentFile().mkdirs();
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(lastUsed.size());
+      for (Map.Entry<String, Long> e : lastUsed.entrySet()) {
+        out.writeUTF(e.getKey());
+        out.writeLong(e.getValue());
+      }
+    } catch (IOException e) {
+      log.error("Failed to write mod store index", e);
+      return;
+    }
+
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.error("Failed to replace mod store index", e);
+    }
+  }
+
+  private static synchronized void load() {
+    if (loaded) return;
+    loaded = true;
+
+    File file = new File(INDEX_PATH);
+    if (file.exists()) {
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+        if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+          int count = in.readInt();
+          for (int i = 0; i < count; i++) lastUsed.put(in.readUTF(), in.readLong());
+          return;
+        }
+        log.warning("Discarding mod store index with unknown format");
+      } catch (IOException e) {
+        log.error("Failed to read mod store index", e);
+        lastUsed.clear();
+      }
+    }
+
+    // No usable index, whatever is in the store counts as least recently used.
+    File[] shards = new File(STORE_PATH).listFiles(File::isDirectory);
+    if (shards == null) return;
+    for (File shard : shards) {
+      String[] names = shard.list();
+      if (names == null) continue;
+      for (String name : names) {
+        if (!name.contains(FileUtil.TEMP_SUFFIX)) lastUsed.put(name, 0L);
+      }
+    }
+  }
+
+  private static String key(long crc, long size) {
+    return String.format("%08x-%x", crc, size);
+  }
+
+  private static File file(long crc, long size) {
+    return file(key(crc, size));
+  }
+
+  private static File file(String key) {
+    return new File(STORE_PATH + key.substring(0, 2) + "/" + key);
+  }
+
+}
@@ -0,0 +1,80 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.mods.data.ModArchive;
+import com.lucasallegri.launcher.mods.data.ZipMod;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Which mods write the same rsrc paths, built from the entry tables {@link ModInspector} already keeps,
+ * so nothing has to be extracted or even opened to find out.
+ *
+ * Contributors of each path are kept in mount order, the last one is the mod whose file ends up on disk.
+ */
+public class ModConflicts {
+
+  private final Map<String, List<ZipMod>> contributors = new LinkedHashMap<>();
+
+  private ModConflicts() {}
+
+  /**
+   * @param mods the mods to look at, in mount order.
+   */
+  public static ModConflicts build(List<ZipMod> mods) {
+    ModConflicts conflicts = new ModConflicts();
+    for (ZipMod mod : mods) {
+      ModArchive archive = ModInspector.inspect(new File(mod.getAbsolutePath()));
+      if (archive == null) continue;
+      for (ModArchive.Entry entry : archive.getEntries()) {
+        // Every mod ships its own metadata, that's not something they fight over.
+        if (entry.isDirectory() || entry.getName().equals("mod.json")) continue;
+        List<ZipMod> list = conflicts.contributors.computeIfAbsent(ModMounter.pathKey(entry.getName()), k -> new ArrayList<>(1));
+        if (!list.contains(mod)) list.add(mod);
+      }
+    }
+    return conflicts;
+  }
+
+  /**
+   * Every mod that ships the given path, in mount order. Empty if none does.
+   */
+  public List<ZipMod> getContributors(String path) {
+    List<ZipMod> list = this.contributors.get(ModMounter.pathKey(path));
+    return list == null ? Collections.emptyList() : Collections.unmodifiableList(list);
+  }
+
+  /**
+   * The mod whose version of the given path gets mounted, or null if no mod ships it.
+   */
+  public ZipMod getOwner(String path) {
+    List<ZipMod> list = this.contributors.get(ModMounter.pathKey(path));
+    return list == null ? null : list.get(list.size() - 1);
+  }
+
+  /**
+   * Every path shipped by more than one mod, with its contributors in mount order.
+   */
+  public Map<String, List<ZipMod>> getConflicts() {
+    Map<String, List<ZipMod>> conflicts = new LinkedHashMap<>();
+    for (Map.Entry<String, List<ZipMod>> e : this.contributors.entrySet()) {
+      if (e.getValue().size() > 1) conflicts.put(e.getKey(), Collections.unmodifiableList(e.getValue()));
+    }
+    return conflicts;
+  }
+
+  /**
+   * Mods sharing at least one path with the given one, each with the number of paths they share, in mount order.
+   */
+  public Map<ZipMod, Integer> getOverlaps(ZipMod mod) {
+    Map<ZipMod, Integer> overlaps = new LinkedHashMap<>();
+    for (List<ZipMod> list : this.contributors.values()) {
+      if (list.size() < 2 || !list.contains(mod)) continue;
+      for (ZipMod other : list) {
+        if (other != mod) overlaps.merge(other, 1, Integer::sum);
+      }
+    }
+    return overlaps;
+  }
+
+}
@@ -0,0 +1,202 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.LauncherGlobals;
+import com.lucasallegri.launcher.mods.data.ModArchive;
+import com.lucasallegri.launcher.settings.SettingsProperties;
+import com.lucasallegri.util.FileUtil;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Everything the mod loader remembers about installed mods between launches, in a single file:
+ * per-mod fingerprint, metadata, entry table and enabled state, keyed by the mod's absolute path.
+ *
+ * The index is read in one go the first time it's needed and written back atomically.
+ * It replaces the old per-mod .hash side files and the modloader.lastModCount and
+ * modloader.disabledMods properties, which are imported once when no index exists yet.
+ */
+public class ModIndex {
+
+  private static final int MAGIC = 0x4B4C4D49; // "KLMI"
+  private static final int VERSION = 1;
+
+  private static final String INDEX_PATH = LauncherGlobals.USER_DIR + "/KnightLauncher/mods.index";
+
+  private static final Map<String, Record> records = new ConcurrentHashMap<>();
+  private static final Set<String> legacyDisabled = ConcurrentHashMap.newKeySet();
+  private static boolean loaded = false;
+  private static volatile boolean dirty = false;
+
+  /**
+   * Returns the last inspection result recorded for the given path, or null if there is none.
+   */
+  public static ModArchive getArchive(String path) {
+    load();
+    Record record = records.get(new File(path).getAbsolutePath());
+    return record == null ? null : record.archive;
+  }
+
+  /**
+   * Records a new inspection result for the given path, keeping its enabled state.
+   * A null archive marks the mod as unreadable.
+   */
+  static void putArchive(String path, ModArchive archive) {
+    load();
+    records.compute(path, (key, old) -> new Record(archive, old == null ? !isLegacyDisabled(key) : old.enabled));
+    dirty = true;
+  }
+
+  public static boolean isEnabled(String path) {
+    load();
+    path = new File(path).getAbsolutePath();
+    Record record = records.get(path);
+    return record == null ? !isLegacyDisabled(path) : record.enabled;
+  }
+
+  public static void setEnabled(String path, boolean enabled) {
+    load();
+    records.compute(new File(path).getAbsolutePath(), (key, old) -> new Record(old == null ? null : old.archive, enabled));
+    dirty = true;
+  }
+
+  /**
+   * Forgets everything about the mod at the given path.
+   */
+  public static void remove(String path) {
+    load();
+    if (records.remove(new File(path).getAbsolutePath()) != null) dirty = true;
+  }
+
+  /**
+   * Paths of every mod the index knows about.
+   */
+  public static Set<String> paths() {
+    load();
+    return Collections.unmodifiableSet(new HashSet<>(records.keySet()));
+  }
+
+  /**
+   * Forgets every mod that isn't in the given list of files, so removed mods don't pile up.
+   */
+  public static void retain(Collection<File> files) {
+    load();
+    Set<String> paths = new HashSet<>();
+    for (File file : files) paths.add(file.getAbsolutePath());
+    if (records.keySet().retainAll(paths)) dirty = true;
+  }
+
+  /**
+   * Drops every recorded inspection result in memory, enabled states are kept.
+   */
+  static synchronized void clearArchives() {
+    load();
+    records.replaceAll((key, old) -> new Record(null, old.enabled));
+  }
+
+  public static synchronized void save() {
+    if (!dirty) return;
+
+    File file = new File(INDEX_PATH);
+    File temp = new File(INDEX_PATH + ".tmp");
+    file.getParentFile().mkdirs();
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(records.size());
+      for (Map.Entry<String, Record> e : records.entrySet()) {
+        Record record = e.getValue();
+        out.writeUTF(e.getKey());
+        out.writeBoolean(record.enabled);
+        out.writeBoolean(record.archive != null);
+        if (record.archive != null) record.archive.write(out);
+      }
+    } catch (IOException e) {
+      log.error("Failed to write mod index", e);
+      return;
+    }
+
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      dirty = false;
+    } catch (IOException e) {
+      log.error("Failed to replace mod index", e);
+      return;
+    }
+
+    // The index is the only source of truth now, drop what was imported from the old files.
+    if (!legacyDisabled.isEmpty()) {
+      legacyDisabled.clear();
+      SettingsProperties.setValue("modloader.disabledMods", "");
+    }
+  }
+
+  private static synchronized void load() {
+    if (loaded) return;
+    loaded = true;
+
+    File file = new File(INDEX_PATH);
+    if (!file.exists()) {
+      importLegacy();
+      return;
+    }
+
+    try {
+      // The whole index is small, read it in one sequential pass and parse from memory.
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        log.warning("Discarding mod index with unknown format");
+        return;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String path = in.readUTF();
+        boolean enabled = in.readBoolean();
+        ModArchive archive = in.readBoolean() ? ModArchive.read(path, in) : null;
+        records.put(path, new Record(archive, enabled));
+      }
+    } catch (IOException e) {
+      log.error("Failed to read mod index", e);
+      records.clear();
+    }
+  }
+
+  /**
+   * Picks up the disabled mods from the properties file and cleans up what older versions left around.
+   * Fingerprints aren't imported, every mod looks changed once and gets mounted again.
+   */
+  private static void importLegacy() {
+    String disabled = SettingsProperties.getValue("modloader.disabledMods");
+    if (disabled != null && !disabled.isEmpty()) {
+      legacyDisabled.addAll(Arrays.asList(disabled.split(",")));
+      dirty = true;
+    }
+
+    if (new File(LauncherGlobals.USER_DIR + "/mods/").isDirectory()) {
+      for (String hash : FileUtil.fileNamesInDirectory(LauncherGlobals.USER_DIR + "/mods/", ".hash")) {
+        new File(LauncherGlobals.USER_DIR + "/mods/" + hash).delete();
+      }
+    }
+  }
+
+  private static boolean isLegacyDisabled(String path) {
+    return legacyDisabled.contains(new File(path).getName());
+  }
+
+  private static class Record {
+    private final ModArchive archive;
+    private final boolean enabled;
+
+    private Record(ModArchive archive, boolean enabled) {
+      this.archive = archive;
+      this.enabled = enabled;
+    }
+  }
+
+}
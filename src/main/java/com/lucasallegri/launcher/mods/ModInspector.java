@@ -0,0 +1,79 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.mods.data.ModArchive;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Inspects mod archives, reusing the results recorded in the {@link ModIndex}.
+ * Results are keyed by the file's stat data (path, size, last modified time and file key),
+ * an archive is only opened again when any of those change.
+ */
+public class ModInspector {
+
+  /**
+   * Returns the inspection result for the given archive, opening it only if its stat data changed since last time.
+   *
+   * @return the archive, or null if it couldn't be read.
+   */
+  public static ModArchive inspect(File file) {
+    String path = file.getAbsolutePath();
+    ModArchive cached = ModIndex.getArchive(path);
+    if (cached != null && cached.isCurrent(file)) return cached;
+
+    try {
+      ModArchive archive = ModArchive.inspect(file);
+      ModIndex.putArchive(path, archive);
+      return archive;
+    } catch (IOException e) {
+      log.error("Could not inspect mod archive", "file", file, e);
+      ModIndex.putArchive(path, null);
+      return null;
+    }
+  }
+
+  /**
+   * Inspects all given archives concurrently on a bounded pool.
+   *
+   * @return the results in the same order as the given files, with null for archives that couldn't be read.
+   */
+  public static List<ModArchive> inspectAll(List<File> files) {
+    return inspectAll(files, ModMounter.MAX_WORKERS);
+  }
+
+  static List<ModArchive> inspectAll(List<File> files, int workers) {
+    ModArchive[] results = new ModArchive[files.size()];
+    if (files.isEmpty()) return Arrays.asList(results);
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, files.size())));
+    for (int i = 0; i < files.size(); i++) {
+      final int idx = i;
+      pool.execute(() -> results[idx] = inspect(files.get(idx)));
+    }
+
+    pool.shutdown();
+    try {
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Drops every cached inspection result, the next inspection of any archive opens it again.
+   */
+  static void clear() {
+    ModIndex.clearArchives();
+  }
+
+}
@@ -7,33 +7,42 @@ import com.lucasallegri.launcher.LauncherGlobals;
 import com.lucasallegri.launcher.mods.data.Mod;
 import com.lucasallegri.launcher.mods.data.ZipMod;
 import com.lucasallegri.launcher.settings.Settings;
-import com.lucasallegri.launcher.settings.SettingsProperties;
 import com.lucasallegri.util.DesktopUtil;
 
+import java.awt.EventQueue;
 import java.awt.event.ActionEvent;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 
 public class ModListEventHandler {
 
   public static void refreshEvent(ActionEvent action) {
 
-    ModLoader.checkInstalled();
-    if (ModLoader.rebuildRequired && Settings.doRebuilds) {
+    // The watcher keeps the mod list up to date, only pick up what it hasn't gotten to yet.
+    if (ModWatcher.isRunning()) {
+      ModWatcher.flush();
+    } else {
+      ModLoader.checkInstalled();
+    }
+    if (ModLoader.rebuildRequired && Settings.doRebuilds.get()) {
       ModLoader.startFileRebuild();
     }
     ModListGUI.labelModCount.setText(Integer.toString(ModLoader.getModCount()));
-    ModLoader.mount();
+    // Clicking again before it gets to run doesn't queue another one.
+    ModLoader.startMount();
     ModListGUI.updateModList();
   }
 
   public static void forceApplyEvent(ActionEvent action) {
     ModListGUI.labelForceApplyState.setText("Applying...");
-    ModLoader.mount();
-    ModListGUI.labelForceApplyState.setText("Applied");
-    DiscordRPC.getInstance().setDetails(Locale.getValue("presence.launch_ready", String.valueOf(ModLoader.getEnabledModCount())));
+    ModLoader.mountRequired = true;
+    // Also completes when the mount failed or never ran because a rebuild before it failed.
+    ModLoader.startMount().getFuture().whenComplete((v, error) -> EventQueue.invokeLater(() -> {
+      if (error != null) {
+        ModListGUI.labelForceApplyState.setText("Failed");
+        return;
+      }
+      ModListGUI.labelForceApplyState.setText("Applied");
+      DiscordRPC.getInstance().setDetails(Locale.getValue("presence.launch_ready", String.valueOf(ModLoader.getEnabledModCount())));
+    }));
   }
 
   public static void getModsEvent(ActionEvent action) {
@@ -41,35 +50,19 @@ public class ModListEventHandler {
   }
 
   public static void disableMod(Mod mod) {
-    String disabledMods = SettingsProperties.getValue("modloader.disabledMods");
-    SettingsProperties.setValue("modloader.disabledMods",
-        disabledMods.equals("") ? mod.getFileName() : disabledMods + "," + mod.getFileName());
+    ModIndex.setEnabled(mod.getAbsolutePath(), false);
+    ModIndex.save();
     mod.setEnabled(false);
     ModListGUI.updateModList();
+    // The mount only touches this mod's paths, the paths it uncovers come back from the pristine store.
     ModLoader.mountRequired = true;
-    ModLoader.rebuildRequired = true;
   }
 
   public static void enableMod(Mod mod) {
-    String disabledMods = SettingsProperties.getValue("modloader.disabledMods");
-    if(disabledMods.contains(",")) {
-      ArrayList<String> disabledModsList = new ArrayList<>(Arrays.asList(disabledMods.split(",")));
-      disabledModsList.remove(mod.getFileName());
-      disabledMods = "";
-      for(String disabledMod : disabledModsList) {
-        if(disabledMods.equals("")) {
-          disabledMods += disabledMod;
-        } else {
-          disabledMods += "," + disabledMod;
-        }
-      }
-    } else {
-      disabledMods = "";
-    }
-    SettingsProperties.setValue("modloader.disabledMods", disabledMods);
+    ModIndex.setEnabled(mod.getAbsolutePath(), true);
+    ModIndex.save();
     mod.setEnabled(true);
     ModListGUI.updateModList();
     ModLoader.mountRequired = true;
-    ModLoader.rebuildRequired = true;
   }
 }
@@ -2,6 +2,7 @@ package com.lucasallegri.launcher.mods;
 
 import com.lucasallegri.launcher.*;
 import com.lucasallegri.launcher.mods.data.Mod;
+import com.lucasallegri.launcher.mods.data.ZipMod;
 import com.lucasallegri.launcher.settings.SettingsEventHandler;
 import com.lucasallegri.util.ColorUtil;
 import com.lucasallegri.util.DesktopUtil;
@@ -12,6 +13,7 @@ import mdlaf.utils.MaterialBorders;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.Map;
 
 public class ModListGUI extends BaseGUI {
 
@@ -29,6 +31,7 @@ public class ModListGUI extends BaseGUI {
   private JLabel labelDescription;
   private JLabel labelVersion;
   private JLabel labelAuthor;
+  private JLabel labelOverlaps;
 
   public ModListGUI(LauncherApp app) {
     super();
@@ -67,6 +70,7 @@ public class ModListGUI extends BaseGUI {
         labelDescription.setText("<html>" + currentMod.getDescription() + "</html>");
         labelVersion.setText(Locale.getValue("m.mod_version", currentMod.getVersion()));
         labelAuthor.setText(Locale.getValue("m.mod_author", currentMod.getAuthor()));
+        showOverlaps(currentMod);
         if(currentMod.isEnabled()) {
           enableButton.setVisible(false);
           enableButton.setVisible(false);
@@ -178,6 +182,12 @@ public class ModListGUI extends BaseGUI {
     labelVersion.setBounds(188, 274, 178, 14);
     modListGUIFrame.getContentPane().add(labelVersion);
 
+    labelOverlaps = new JLabel("");
+    labelOverlaps.setFont(Fonts.fontReg);
+    labelOverlaps.setForeground(Colors.MID_RED);
+    labelOverlaps.setBounds(188, 292, 178, 14);
+    modListGUIFrame.getContentPane().add(labelOverlaps);
+
     enableButton = new JButton(Locale.getValue("b.enable"));
     enableButton.setFont(Fonts.fontMed);
     enableButton.setForeground(Colors.MID_GREEN);
@@ -311,6 +321,22 @@ public class ModListGUI extends BaseGUI {
 
   }
 
+  private void showOverlaps(Mod mod) {
+    labelOverlaps.setText("");
+    labelOverlaps.setToolTipText(null);
+    if (!mod.isEnabled() || !(mod instanceof ZipMod)) return;
+
+    // Straight from the cached entry tables, cheap enough to do on every selection.
+    Map<ZipMod, Integer> overlaps = ModLoader.getConflicts().getOverlaps((ZipMod) mod);
+    if (overlaps.isEmpty()) return;
+    StringBuilder tooltip = new StringBuilder("<html>");
+    for (Map.Entry<ZipMod, Integer> e : overlaps.entrySet()) {
+      tooltip.append(e.getKey().getDisplayName()).append(" (").append(e.getValue()).append(")<br>");
+    }
+    labelOverlaps.setText(Locale.getValue("m.mod_overlaps", String.valueOf(overlaps.size())));
+    labelOverlaps.setToolTipText(tooltip.append("</html>").toString());
+  }
+
   public static void updateModList() {
     int idx = modListContainer.getSelectedIndex();
     modListContainer.removeAll();
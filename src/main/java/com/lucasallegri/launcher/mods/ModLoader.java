@@ -4,18 +4,25 @@ import com.lucasallegri.discord.DiscordRPC;
 import com.lucasallegri.launcher.*;
 import com.lucasallegri.launcher.mods.data.JarMod;
 import com.lucasallegri.launcher.mods.data.Mod;
+import com.lucasallegri.launcher.mods.data.ModArchive;
 import com.lucasallegri.launcher.mods.data.ZipMod;
+import com.lucasallegri.launcher.settings.Settings;
 import com.lucasallegri.launcher.settings.SettingsGUI;
-import com.lucasallegri.launcher.settings.SettingsProperties;
-import com.lucasallegri.util.Compressor;
 import com.lucasallegri.util.FileUtil;
-import org.json.JSONObject;
 
+import java.awt.EventQueue;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.zip.ZipFile;
+import java.util.Map;
+import java.util.Set;
 
 import static com.lucasallegri.launcher.mods.Log.log;
 
@@ -23,138 +30,294 @@ public class ModLoader {
 
   private static final LinkedList<Mod> modList = new LinkedList<>();
 
-  private static final String[] RSRC_BUNDLES = { "full-music-bundle.jar", "full-rest-bundle.jar", "intro-bundle.jar" };
+  static final String[] RSRC_BUNDLES = { "full-music-bundle.jar", "full-rest-bundle.jar", "intro-bundle.jar" };
 
   public static Boolean mountRequired = false;
   public static Boolean rebuildRequired = false;
 
-  public static void checkInstalled() {
+  public static synchronized void checkInstalled() {
 
     // Clean the list in case something remains in it.
     if (getModCount() > 0) clearModList();
 
     // Append all .zip and .jar files inside the mod folder into an ArrayList.
-    List<String> rawFiles = FileUtil.fileNamesInDirectory(LauncherGlobals.USER_DIR + "/mods/", ".zip");
-    rawFiles.addAll(FileUtil.fileNamesInDirectory(LauncherGlobals.USER_DIR + "/code-mods/", ".jar"));
-
-    for (String file : rawFiles) {
-      JSONObject modJson;
-      try {
-        modJson = new JSONObject(Compressor.readFileInsideZip(LauncherGlobals.USER_DIR + "/mods/" + file, "mod.json")).getJSONObject("mod");
-      } catch (Exception e) {
-        modJson = null;
-      }
+    List<File> modFiles = listModFiles();
+    List<Mod> found = new ArrayList<>();
+    for (File file : modFiles) {
+      found.add(createMod(file));
+    }
 
-      Mod mod = null;
-      if (file.endsWith("zip")) {
-        mod = new ZipMod(file);
-      } else if (file.endsWith("jar")) {
-        mod = new JarMod(file);
-      }
+    // Remember what the index had from the last run before inspecting refreshes it.
+    Set<String> knownPaths = ModIndex.paths();
+    Map<String, String> lastFingerprints = new HashMap<>();
+    for (String path : knownPaths) {
+      ModArchive last = ModIndex.getArchive(path);
+      if (last != null) lastFingerprints.put(path, last.getFingerprint());
+    }
 
-      if (mod != null && modJson != null) {
-        mod.setDisplayName(modJson.getString("name"));
-        mod.setDescription(modJson.getString("description"));
-        mod.setAuthor(modJson.getString("author"));
-        mod.setVersion(modJson.getString("version"));
-      }
+    // Metadata, fingerprint and entry table all come from a single look at each archive, or straight
+    // from the index if the file didn't change since last time. Archives are inspected
+    // concurrently but results come back in listing order, so the mod list stays the same as before.
+    List<ModArchive> archives = ModInspector.inspectAll(modFiles);
+
+    Set<String> currentPaths = new HashSet<>();
+    for (int i = 0; i < found.size(); i++) {
+      Mod mod = found.get(i);
+      ModArchive archive = archives.get(i);
+      applyMetadata(mod, archive);
 
       addMod(mod);
       mod.wasAdded();
 
-      // Compute a hash for each mod file and check that it matches on every execution, if it doesn't, then rebuild.
-      String hash = Compressor.getZipHash(LauncherGlobals.USER_DIR + "/mods/" + file);
-      String hashFilePath = LauncherGlobals.USER_DIR + "/mods/" + mod.getFileName() + ".hash";
+      // Check that each mod's fingerprint matches on every execution, if it doesn't, then remount.
+      // Unreadable archives have nothing sensible to compare against, try again on the next mount.
+      String path = modFiles.get(i).getAbsolutePath();
+      currentPaths.add(path);
+      if (!sameFingerprint(archive, lastFingerprints.get(path))) mountRequired = true;
+    }
+
+    // Check if there's a new or removed mod since last execution, a remount will be needed in that case.
+    if (!currentPaths.equals(knownPaths)) mountRequired = true;
 
-      if (FileUtil.fileExists(hashFilePath)) {
-        try {
-          // We read the hash file contents.
-          String fileHash = FileUtil.readFile(hashFilePath);
+    ModIndex.retain(modFiles);
+    ModIndex.save();
 
-          // If both hashes match then we move on.
-          if (hash.startsWith(fileHash)) continue;
+    checkRebuildRequired();
 
-          // They don't? We write a new one and schedule a file rebuild and remount.
-          new File(hashFilePath).delete();
-          FileUtil.writeFile(hashFilePath, hash);
-          rebuildRequired = true;
-          mountRequired = true;
+    // Finally lets see which have been set as disabled.
+    loadEnabledStates();
+  }
 
-        } catch (IOException e) {
-          log.error(e);
+  /**
+   * Updates the mod list for the given mod files only, without rescanning the mod folders.
+   * Files that are gone get dropped, new and modified ones are inspected again, every other mod is left alone.
+   */
+  public static synchronized void applyChanges(Collection<File> files) {
+    boolean changed = false;
+    for (File file : files) {
+      String path = file.getAbsolutePath();
+      ModArchive last = ModIndex.getArchive(path);
+      String lastFingerprint = last == null ? null : last.getFingerprint();
+      boolean removed = removeMod(path);
+
+      if (!file.isFile()) {
+        ModIndex.remove(path);
+        if (removed) {
+          log.info("A mod was removed", "file", file.getName());
+          changed = true;
         }
-      } else {
-        // And if we don't have any hash at all then let's make it.
-        FileUtil.writeFile(hashFilePath, hash);
-        rebuildRequired = true;
-        mountRequired = true;
+        continue;
       }
+
+      Mod mod = createMod(file);
+      ModArchive archive = ModInspector.inspect(file);
+      applyMetadata(mod, archive);
+      addMod(mod);
+      mod.setEnabled(ModIndex.isEnabled(path));
+      if (!removed) mod.wasAdded();
+      if (!removed || !sameFingerprint(archive, lastFingerprint)) changed = true;
     }
+    if (!changed) return;
 
-    // Check if there's a new or removed mod since last execution, rebuild will be needed in that case.
-    if (Integer.parseInt(SettingsProperties.getValue("modloader.lastModCount")) != getModCount()) {
-      SettingsProperties.setValue("modloader.lastModCount", Integer.toString(getModCount()));
+    // Keep the same order a full rescan would give, mount order depends on it.
+    List<String> order = new ArrayList<>();
+    for (File file : listModFiles()) order.add(file.getAbsolutePath());
+    synchronized (modList) {
+      modList.sort(Comparator.comparingInt(mod -> order.indexOf(new File(mod.getAbsolutePath()).getAbsolutePath())));
+    }
+
+    ModIndex.save();
+    mountRequired = true;
+    checkRebuildRequired();
+    refreshModListGUI();
+  }
+
+  /**
+   * Shows the current mod list, if the window is up. Safe to call from any thread.
+   */
+  private static void refreshModListGUI() {
+    EventQueue.invokeLater(() -> {
+      if (ModListGUI.labelModCount == null) return;
+      ModListGUI.updateModList();
+      ModListGUI.labelModCount.setText(Integer.toString(getModCount()));
+    });
+  }
+
+  /**
+   * Mod files in mount order. Directory listings come back in whatever order the file system likes, so mods are
+   * sorted by name, then the ones named in modloader.mountOrder are moved to the end in the order given there.
+   * Later mods win conflicts, the last one listed in modloader.mountOrder has the final say.
+   */
+  private static List<File> listModFiles() {
+    List<String> zips = FileUtil.fileNamesInDirectory(LauncherGlobals.USER_DIR + "/mods/", ".zip");
+    List<String> jars = FileUtil.fileNamesInDirectory(LauncherGlobals.USER_DIR + "/code-mods/", ".jar");
+    zips.sort(String.CASE_INSENSITIVE_ORDER);
+    jars.sort(String.CASE_INSENSITIVE_ORDER);
+
+    List<String> order = new ArrayList<>();
+    for (String name : Settings.modloaderMountOrder.get().split(",")) {
+      if (!name.trim().isEmpty()) order.add(name.trim());
+    }
+    Comparator<String> priority = Comparator.comparingInt(order::indexOf);
+    zips.sort(priority);
+    jars.sort(priority);
+
+    List<File> files = new ArrayList<>();
+    for (String file : zips) files.add(new File(LauncherGlobals.USER_DIR + "/mods/" + file));
+    for (String file : jars) files.add(new File(LauncherGlobals.USER_DIR + "/code-mods/" + file));
+    return files;
+  }
+
+  private static Mod createMod(File file) {
+    return file.getName().endsWith("jar") ? new JarMod(file.getName()) : new ZipMod(file.getName());
+  }
+
+  private static void applyMetadata(Mod mod, ModArchive archive) {
+    if (archive == null || !archive.hasMetadata()) return;
+    mod.setDisplayName(archive.getName());
+    mod.setDescription(archive.getDescription());
+    mod.setAuthor(archive.getAuthor());
+    mod.setVersion(archive.getVersion());
+  }
+
+  private static boolean sameFingerprint(ModArchive archive, String lastFingerprint) {
+    return archive != null && archive.getFingerprint().equals(lastFingerprint);
+  }
+
+  private static void checkRebuildRequired() {
+    // Mounts are incremental against the last mount manifest. Without a usable one we can't tell
+    // which files in rsrc belong to mods, so start from a clean rebuild like we used to.
+    if (mountRequired && !MountManifest.isCurrent(ResourceBundles.stamp(new File(LauncherGlobals.USER_DIR + "/rsrc/")))) {
       rebuildRequired = true;
-      mountRequired = true;
     }
+  }
 
-    // Finally lets see which have been set as disabled.
-    parseDisabledMods();
+  /**
+   * Picks up after a mount or rebuild the launcher didn't get to finish last time, see {@link MountJournal#recover}.
+   */
+  public static void recover() {
+    MountJournal.Kind interrupted = MountJournal.recover(new File(LauncherGlobals.USER_DIR + "/rsrc/"));
+    if (interrupted == null) return;
+    Safeguard.invalidate();
+    mountRequired = true;
+    if (interrupted == MountJournal.Kind.DEEP) rebuildRequired = true;
+  }
+
+  /**
+   * What mounting the enabled mods would do right now, without touching anything.
+   */
+  public static MountPlan planMount() {
+    return ModMounter.plan(getEnabledZipMods(), new File(LauncherGlobals.USER_DIR + "/rsrc/"));
   }
 
   public static void mount() {
 
+    if (Settings.modloaderDryRun.get()) {
+      // Only report what would happen, rsrc is left alone and the mount stays pending.
+      log.info("Dry run, not mounting", "rebuildRequired", rebuildRequired, "plan", planMount());
+      return;
+    }
+
+    // An earlier mount or rebuild this session may have been interrupted, the mount diffs against what it left.
+    recover();
+    // The mount diffs against what's on disk, so any pending rebuild has to finish first.
+    if(rebuildRequired) rebuildFiles(false);
+
     LauncherGUI.launchButton.setEnabled(false);
-    if(rebuildRequired) startFileRebuild();
     ProgressBar.startTask();
-    ProgressBar.setBarMax(getEnabledModCount() + 1);
     ProgressBar.setState(Locale.getValue("m.mount"));
     DiscordRPC.getInstance().setDetails(Locale.getValue("m.mount"));
-    LinkedList<Mod> localList = getModList();
 
-    for (int i = 0; i < getModCount(); i++) {
-      if(localList.get(i).isEnabled()) {
-        localList.get(i).mount();
-        ProgressBar.setBarValue(i + 1);
-      }
+    for (Mod mod : getModList()) {
+      if (mod.isEnabled() && mod instanceof JarMod) ((JarMod) mod).mount();
+    }
+    // Zip mods go through the mount engine together so each rsrc file is only written by its final owner.
+    MountPlan plan = planMount();
+    if (ModMounter.mount(plan)) {
+      // Make sure no cheat mod slips in. Only what the mount touched can need it again.
+      Safeguard.apply(new File(LauncherGlobals.USER_DIR + "/rsrc/"), plan.getTouchedPaths());
+      mountRequired = false;
     }
-
-    // Make sure no cheat mod slips in.
-    extractSafeguard();
-
-    mountRequired = false;
     ProgressBar.finishTask();
     LauncherGUI.launchButton.setEnabled(true);
   }
 
-  public static void startFileRebuild() {
-    Thread rebuildThread = new Thread(() -> rebuildFiles());
-    rebuildThread.start();
+  /**
+   * Mounts in the background if a mount is still required by the time it gets to run. Queued behind any
+   * rebuild or mount already submitted, so it sees what they leave on disk.
+   */
+  public static TaskScheduler.Task startMount() {
+    return TaskScheduler.submit("mount", TaskScheduler.Pool.MODS, () -> {
+      if (mountRequired) mount();
+    });
   }
 
-  private static void rebuildFiles() {
-    try {
-      LauncherGUI.launchButton.setEnabled(false);
-      LauncherGUI.settingsButton.setEnabled(false);
-      SettingsGUI.forceRebuildButton.setEnabled(false);
-    } catch (Exception ignored) {}
+  public static TaskScheduler.Task startFileRebuild() {
+    return TaskScheduler.submit("rebuild", TaskScheduler.Pool.MODS, () -> rebuildFiles(false));
+  }
+
+  /**
+   * Unpacks every bundle again instead of restoring only the files mods touched.
+   * Use when rsrc may have been modified outside of the mod loader.
+   */
+  public static TaskScheduler.Task startDeepFileRebuild() {
+    return TaskScheduler.submit("deep-rebuild", TaskScheduler.Pool.MODS, () -> rebuildFiles(true));
+  }
+
+  private static void rebuildFiles(boolean deep) {
+    setRebuildButtonsEnabled(false);
 
 
     ProgressBar.startTask();
-    ProgressBar.setBarMax(RSRC_BUNDLES.length + 1);
+    ProgressBar.setBarBytes(0, 1);
     DiscordRPC.getInstance().setDetails(Locale.getValue("m.clean"));
     ProgressBar.setState(Locale.getValue("m.clean"));
 
-    // Iterate through all 3 bundles to clean up the game files.
-    for (int i = 0; i < RSRC_BUNDLES.length; i++) {
-      ProgressBar.setBarValue(i + 1);
-      DiscordRPC.getInstance().setDetails(Locale.getValue("presence.rebuilding", new String[]{String.valueOf(i + 1), String.valueOf(RSRC_BUNDLES.length)}));
-      try {
-        FileUtil.unpackJar(new ZipFile(LauncherGlobals.USER_DIR + "/rsrc/" + RSRC_BUNDLES[i]), new File(LauncherGlobals.USER_DIR + "/rsrc/"), false);
-      } catch (IOException e) {
-        log.error(e);
+    File rsrcDir = new File(LauncherGlobals.USER_DIR + "/rsrc/");
+    // Don't let the journal of an interrupted mount or restore get replaced before it's dealt with.
+    MountJournal.recover(rsrcDir);
+    long bundleStamp = ResourceBundles.stamp(rsrcDir);
+    MountManifest manifest = deep ? null : MountManifest.load(bundleStamp);
+    MountJournal deepJournal = null;
+    List<MountManifest.Entry> failed = Collections.emptyList();
+
+    if (manifest != null) {
+      // We know exactly which files mods wrote, so only those need to go back to their bundle version.
+      log.info("Restoring files touched by mods", "files", manifest.size());
+      List<MountManifest.Entry> dirty = new ArrayList<>();
+      for (String key : manifest.keys()) dirty.add(manifest.get(key));
+      failed = ModMounter.restore(dirty, rsrcDir);
+      if (failed == null) {
+        // Leave the manifest as it is, recovery sorts out what did and didn't get restored.
+        ProgressBar.finishTask();
+        setRebuildButtonsEnabled(true);
+        return;
       }
+    } else {
+      // Unpack all 3 bundles at once to clean up the game files.
+      deepJournal = beginDeepJournal();
+      if (!ResourceBundles.unpackAll(rsrcDir)) {
+        // Leave the deep journal behind, recovery will ask for another full rebuild.
+        if (deepJournal != null) deepJournal.close();
+        ProgressBar.finishTask();
+        setRebuildButtonsEnabled(true);
+        return;
+      }
+      // Everything is straight from the bundles again, no original needs to be kept around.
+      PristineStore.clear();
+    }
+
+    // Nothing in rsrc belongs to a mod anymore, the next mount has to write everything again.
+    MountManifest cleared = new MountManifest(bundleStamp);
+    if (manifest != null) cleared.setRate(manifest.getRate());
+    // Except for what couldn't be put back, the next mount or rebuild has to try those again.
+    for (MountManifest.Entry entry : failed) {
+      cleared.put(ModMounter.pathKey(entry.getPath()), new MountManifest.Entry(entry.getPath(), "", -1, -1));
     }
+    cleared.save();
+    if (deepJournal != null) deepJournal.commit();
+    Safeguard.invalidate();
+    mountRequired = true;
 
     // Check for .xml configs present in the configs folder and delete them.
     List<String> configs = FileUtil.fileNamesInDirectory(LauncherGlobals.USER_DIR + "/rsrc/config", ".xml");
@@ -162,71 +325,99 @@ public class ModLoader {
       new File(LauncherGlobals.USER_DIR + "/rsrc/config/" + config).delete();
     }
 
-    ProgressBar.setBarValue(RSRC_BUNDLES.length + 1);
+    ProgressBar.setBarBytes(1, 1);
     ProgressBar.finishTask();
     rebuildRequired = false;
 
-    try {
-      LauncherGUI.launchButton.setEnabled(true);
-      LauncherGUI.settingsButton.setEnabled(true);
-      SettingsGUI.forceRebuildButton.setEnabled(true);
-    } catch (Exception ignored) {}
+    setRebuildButtonsEnabled(true);
 
     DiscordRPC.getInstance().setDetails(Locale.getValue("presence.launch_ready", String.valueOf(getEnabledModCount())));
   }
 
-  public static void extractSafeguard() {
+  private static void setRebuildButtonsEnabled(boolean enabled) {
     try {
-      log.info("Extracting safeguard...");
-      FileUtil.extractFileWithinJar("/modules/safeguard/bundle.zip", LauncherGlobals.USER_DIR + "/KnightLauncher/modules/safeguard/bundle.zip");
-      Compressor.unzip(LauncherGlobals.USER_DIR + "/KnightLauncher/modules/safeguard/bundle.zip", LauncherGlobals.USER_DIR + "/rsrc/", false);
-      log.info("Extracted safeguard.");
+      LauncherGUI.launchButton.setEnabled(enabled);
+      LauncherGUI.settingsButton.setEnabled(enabled);
+      SettingsGUI.forceRebuildButton.setEnabled(enabled);
+    } catch (Exception ignored) {}
+  }
+
+  private static MountJournal beginDeepJournal() {
+    try {
+      return MountJournal.begin(MountJournal.Kind.DEEP, Collections.emptyList());
     } catch (IOException e) {
-      log.error(e);
+      log.error("Could not write mount journal", e);
+      return null;
     }
   }
 
+  /**
+   * Makes sure every safeguard file is in place, see {@link Safeguard}.
+   */
+  public static void extractSafeguard() {
+    Safeguard.apply(new File(LauncherGlobals.USER_DIR + "/rsrc/"), Collections.emptySet());
+  }
+
   private static void addMod(Mod mod) {
-    if(mod.isEnabled()) modList.add(mod);
+    synchronized (modList) {
+      if(mod.isEnabled()) modList.add(mod);
+    }
+  }
+
+  private static boolean removeMod(String path) {
+    synchronized (modList) {
+      return modList.removeIf(mod -> new File(mod.getAbsolutePath()).getAbsolutePath().equals(path));
+    }
   }
 
   public static int getModCount() {
-    return modList.size();
+    synchronized (modList) {
+      return modList.size();
+    }
   }
 
   public static int getEnabledModCount() {
     int count = 0;
-    for(Mod mod : modList) {
+    for(Mod mod : getModList()) {
       if(mod.isEnabled()) count++;
     }
     return count;
   }
 
+  /**
+   * Which enabled zip mods write the same paths, in the order they'd be mounted right now.
+   */
+  public static ModConflicts getConflicts() {
+    return ModConflicts.build(getEnabledZipMods());
+  }
+
+  private static List<ZipMod> getEnabledZipMods() {
+    List<ZipMod> zipMods = new ArrayList<>();
+    for (Mod mod : getModList()) {
+      if (mod.isEnabled() && mod instanceof ZipMod) zipMods.add((ZipMod) mod);
+    }
+    return zipMods;
+  }
+
   public static LinkedList<Mod> getModList() {
     // We don't want to return the actual object so let's clone it.
-    return new LinkedList<>(modList);
+    synchronized (modList) {
+      return new LinkedList<>(modList);
+    }
   }
 
   private static void clearModList() {
-    modList.clear();
+    synchronized (modList) {
+      modList.clear();
+    }
   }
 
-  private static void parseDisabledMods() {
-    String rawString = SettingsProperties.getValue("modloader.disabledMods");
-
-    // No mods to parse as disabled, nothing to do.
-    if(rawString.equals("")) return;
-
-    String[] fileNames = rawString.split(",");
-    for(Mod mod : modList) {
-      for(int i = 0; i < fileNames.length; i++) {
-        if(mod.getFileName().equals(fileNames[i])) {
-          mod.setEnabled(false);
-          break;
-        }
-      }
+  private static void loadEnabledStates() {
+    for(Mod mod : getModList()) {
+      mod.setEnabled(ModIndex.isEnabled(mod.getAbsolutePath()));
     }
-    ModListGUI.updateModList();
+    // The mod watcher rescans from its own thread.
+    refreshModListGUI();
   }
 
 }
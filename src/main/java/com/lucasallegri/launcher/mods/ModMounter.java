@@ -0,0 +1,451 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.ProgressBar;
+import com.lucasallegri.launcher.mods.data.ModArchive;
+import com.lucasallegri.launcher.mods.data.ZipMod;
+import com.lucasallegri.launcher.settings.Settings;
+import com.lucasallegri.util.FileUtil;
+import com.lucasallegri.util.SystemUtil;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Mounts a set of zip mods into a target directory.
+ *
+ * Instead of unzipping every mod on top of the previous one, the final owner of every target path
+ * is resolved first from the cached entry tables of {@link ModInspector} (the last mod in the list wins, same as a sequential mount) and only the winning
+ * entries get extracted, in parallel, on a bounded worker pool. Every file is written exactly once.
+ *
+ * The result is diffed against the {@link MountManifest} of the previous mount, so entries that are
+ * already on disk are skipped and paths no mod owns anymore are restored from the {@link PristineStore}, or the
+ * game bundles when it doesn't have them. That keeps enabling or disabling a single mod down to that mod's paths.
+ *
+ * With a modloader.storeBudget, files are served from the {@link ContentStore} with plain copies and mods are only
+ * opened for content the store doesn't have yet. With modloader.mountMode set to "link" they're linked in from it
+ * instead of copied. Links need the store, without a budget for it files are always copied.
+ */
+public class ModMounter {
+
+  static final int MAX_WORKERS = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+
+  public static boolean mount(List<ZipMod> mods, File target) {
+    return mount(plan(mods, target));
+  }
+
+  /**
+   * Works out what mounting the given mods into the target directory would do, without touching anything.
+   */
+  public static MountPlan plan(List<ZipMod> mods, File target) {
+    long bundleStamp = ResourceBundles.stamp(target);
+    MountManifest previous = MountManifest.load(bundleStamp);
+    if (previous == null) previous = new MountManifest(bundleStamp);
+    PristineStore.load(bundleStamp);
+
+    Set<File> dirs = new LinkedHashSet<>();
+    Map<String, Owner> owners = resolveOwners(mods, target, dirs);
+
+    // Only write what differs from the last mount, and put back whatever no mod claims anymore.
+    List<Owner> writes = new ArrayList<>();
+    for (Map.Entry<String, Owner> e : owners.entrySet()) {
+      Owner owner = e.getValue();
+      MountManifest.Entry last = previous.get(e.getKey());
+      long crc = owner.entry.getCrc(), size = owner.entry.getSize();
+      boolean upToDate = Settings.compressorSkipIdentical.get()
+          ? last != null && last.getCrc() == crc && last.getSize() == size // Same bytes, even if they came from another mod.
+          : last != null && last.matches(owner.mod.getFileName(), crc, size);
+      if (upToDate && owner.file.length() == size) continue;
+
+      // With nothing recorded about the file on disk, have the worker compare it before writing.
+      owner.verify = Settings.compressorSkipIdentical.get() && (last == null || last.getCrc() < 0);
+      // No mod has written the file since it was unpacked, it's about to lose its original content.
+      owner.pristine = last == null;
+      writes.add(owner);
+    }
+    List<MountManifest.Entry> stale = new ArrayList<>();
+    for (String key : previous.keys()) {
+      if (!owners.containsKey(key)) stale.add(previous.get(key));
+    }
+    List<MountManifest.Entry> kept = new ArrayList<>();
+    if (!Settings.doRebuilds.get()) {
+      // Cleaning is turned off, leave whatever is on disk alone but keep tracking it for the next rebuild.
+      kept.addAll(stale);
+      stale.clear();
+    }
+
+    return new MountPlan(target, bundleStamp, previous, mods, owners, dirs, writes, stale, kept);
+  }
+
+  /**
+   * Carries out a plan from {@link #plan}. Nothing may have changed in the target directory since it was made.
+   *
+   * @return false if the mount got interrupted. Its journal is then left behind for {@link MountJournal#recover}.
+   */
+  public static boolean mount(MountPlan plan) {
+    log.info("Mounting zip mods", "plan", plan);
+    if ("link".equals(Settings.modloaderMountMode.get()) && !useStore()) {
+      log.info("No modloader.storeBudget to link from, copying instead");
+    }
+    if (useStore()) {
+      // Whatever is mounted right now is the last thing that should be evicted.
+      for (Owner owner : plan.owners.values()) ContentStore.touch(owner.entry.getCrc(), owner.entry.getSize());
+    }
+
+    OpenArchives archives = new OpenArchives();
+    try {
+      // Create the whole directory tree up front so workers never race on mkdirs.
+      for (File dir : plan.dirs) {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+          log.warning("Failed to create mount directory", "dir", dir);
+        }
+      }
+
+      MountManifest manifest = new MountManifest(plan.bundleStamp);
+      for (MountManifest.Entry entry : plan.kept) manifest.put(pathKey(entry.getPath()), entry);
+      for (Map.Entry<String, Owner> e : plan.owners.entrySet()) {
+        Owner owner = e.getValue();
+        manifest.put(e.getKey(), new MountManifest.Entry(owner.entry.getName(), owner.mod.getFileName(),
+            owner.entry.getCrc(), owner.entry.getSize()));
+      }
+
+      MountJournal journal = beginJournal(MountJournal.Kind.MOUNT, plan.writes, plan.stale);
+      AtomicInteger identical = new AtomicInteger();
+      Progress progress = new Progress(plan.getCost(), plan.getEstimatedMillis());
+      Applied applied = apply(plan.writes, plan.stale, plan.target, archives, journal, identical, progress);
+      if (applied.interrupted) {
+        // Writes that never ran aren't known to anything but the journal, keep it for recovery instead.
+        log.warning("Mount interrupted, leaving it to recovery", "plan", plan);
+        PristineStore.save();
+        if (journal != null) journal.close();
+        return false;
+      }
+      for (Owner owner : applied.failed) {
+        // Keep failed writes tracked as dirty so the next mount retries them and a rebuild still restores them.
+        manifest.put(pathKey(owner.entry.getName()), new MountManifest.Entry(owner.entry.getName(), "", -1, -1));
+      }
+      for (MountManifest.Entry entry : applied.failedRestores) {
+        // Still holding mod content, so the next mount or rebuild has to try again.
+        manifest.put(pathKey(entry.getPath()), new MountManifest.Entry(entry.getPath(), "", -1, -1));
+      }
+      manifest.setRate(progress.measureRate(plan.previous.getRate()));
+      PristineStore.save();
+      manifest.save();
+      if (journal != null) journal.commit();
+
+      log.info("Mounted zip mods", "mods", plan.mods.size(), "owned", plan.owners.size(),
+          "written", plan.writes.size() - applied.failed.size() - identical.get(), "restored", plan.stale.size() - applied.failedRestores.size(),
+          "unchanged", plan.getUnchangedCount() + identical.get(), "millis", progress.elapsed(),
+          "estimatedMillis", plan.getEstimatedMillis());
+    } finally {
+      archives.close();
+    }
+    if (useStore()) ContentStore.trim(Settings.modloaderStoreBudget.get() * 1024L * 1024L);
+    return true;
+  }
+
+  /**
+   * Puts the given manifest entries back to their bundle version, deleting the ones no bundle has.
+   *
+   * @return the entries that couldn't be restored, or null if the restore got interrupted. Its journal is then left
+   *         behind for {@link MountJournal#recover}.
+   */
+  static List<MountManifest.Entry> restore(List<MountManifest.Entry> entries, File target) {
+    MountJournal journal = beginJournal(MountJournal.Kind.RESTORE, Collections.emptyList(), entries);
+    long cost = entries.size() * MountPlan.FILE_COST;
+    for (MountManifest.Entry entry : entries) cost += Math.max(0, entry.getSize());
+    Applied applied = apply(Collections.emptyList(), entries, target, new OpenArchives(), journal, new AtomicInteger(), new Progress(cost, -1));
+    PristineStore.save();
+    if (applied.interrupted) {
+      log.warning("Restore interrupted, leaving it to recovery", "entries", entries.size());
+      if (journal != null) journal.close();
+      return null;
+    }
+    if (journal != null) journal.commit();
+    return new ArrayList<>(applied.failedRestores);
+  }
+
+  /**
+   * Journals the given paths in the same order {@link #apply} reports them as done.
+   *
+   * @return the journal, or null if it couldn't be written, in which case the operation runs unprotected.
+   */
+  private static MountJournal beginJournal(MountJournal.Kind kind, List<Owner> writes, List<MountManifest.Entry> stale) {
+    if (writes.isEmpty() && stale.isEmpty()) return null;
+    List<String> paths = new ArrayList<>(stale.size() + writes.size());
+    for (MountManifest.Entry entry : stale) paths.add(entry.getPath());
+    for (Owner owner : writes) paths.add(owner.entry.getName());
+    try {
+      return MountJournal.begin(kind, paths);
+    } catch (IOException e) {
+      log.error("Could not write mount journal", e);
+      return null;
+    }
+  }
+
+  /**
+   * Walks every mod in mount order and keeps the last one seen for each target path.
+   */
+  private static Map<String, Owner> resolveOwners(List<ZipMod> mods, File target, Set<File> dirs) {
+    Map<String, Owner> owners = new LinkedHashMap<>();
+    for (ZipMod mod : mods) {
+      ModArchive archive = ModInspector.inspect(new File(mod.getAbsolutePath()));
+      if (archive == null) continue;
+
+      for (ModArchive.Entry entry : archive.getEntries()) {
+        if (!shouldMount(entry.getName())) continue;
+
+        File efile = new File(target, entry.getName());
+        if (entry.isDirectory()) {
+          dirs.add(efile);
+          continue;
+        }
+        dirs.add(efile.getParentFile());
+
+        // Re-inserting moves nothing in a LinkedHashMap, so drop the old owner first to keep write order stable.
+        String key = pathKey(entry.getName());
+        owners.remove(key);
+        owners.put(key, new Owner(mod, entry, efile));
+      }
+    }
+    return owners;
+  }
+
+  /**
+   * Restores the stale entries and writes the new ones. Every file is replaced atomically, and reported to the
+   * journal (if any) once done, stale entries first, in list order. Writes found to be on disk already are
+   * skipped and counted in {@code identical}. Whatever fails is reported back instead.
+   *
+   * If the calling thread is interrupted, whatever hasn't started yet is dropped and the rest is waited for.
+   * The thread is left interrupted and nothing reported back covers the dropped paths, only the journal does.
+   */
+  private static Applied apply(List<Owner> writes, List<MountManifest.Entry> stale, File target, OpenArchives archives,
+                               MountJournal journal, AtomicInteger identical, Progress progress) {
+    Applied applied = new Applied();
+    Set<Owner> failed = applied.failed;
+    List<MountManifest.Entry> failedRestores = applied.failedRestores;
+    int total = writes.size() + stale.size();
+    if (total == 0) return applied;
+
+    progress.start();
+
+    ResourceBundles bundles = stale.isEmpty() ? null : ResourceBundles.open(target);
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(MAX_WORKERS, total));
+    int index = 0;
+    for (MountManifest.Entry entry : stale) {
+      final int journalIndex = index++;
+      pool.execute(() -> {
+        File file = new File(target, entry.getPath());
+        try {
+          if (!bundles.restore(entry.getPath(), file, entry)) file.delete();
+          if (journal != null) journal.done(journalIndex);
+        } catch (IOException e) {
+          log.error("Failed to restore entry", "entry", entry.getPath(), e);
+          failedRestores.add(entry);
+        }
+        progress.advance(Math.max(0, entry.getSize()));
+      });
+    }
+    for (Owner owner : writes) {
+      final int journalIndex = index++;
+      pool.execute(() -> {
+        try {
+          if (owner.verify && FileUtil.isIdentical(owner.file, owner.entry.getSize(), owner.entry.getCrc())) {
+            identical.incrementAndGet();
+            if (journal != null) journal.done(journalIndex);
+            progress.advance(owner.entry.getSize());
+            return;
+          }
+          if (owner.pristine) PristineStore.preserve(owner.entry.getName(), owner.file);
+          if (useStore()) {
+            // Content the store already has never needs its mod opened at all.
+            long crc = owner.entry.getCrc(), size = owner.entry.getSize();
+            File stored = ContentStore.get(crc, size);
+            if (stored == null) {
+              try (InputStream in = archives.open(owner.mod, owner.entry.getName())) {
+                stored = ContentStore.put(in, crc, size);
+              }
+            }
+            ContentStore.place(stored, owner.file, "link".equals(Settings.modloaderMountMode.get()));
+          } else {
+            try (InputStream in = archives.open(owner.mod, owner.entry.getName())) {
+              FileUtil.writeAtomically(in, owner.file);
+            }
+          }
+          if (journal != null) journal.done(journalIndex);
+        } catch (IOException e) {
+          log.error("Failed to mount entry", "mod", owner.mod.getFileName(), "entry", owner.entry.getName(), e);
+          failed.add(owner);
+        }
+        progress.advance(owner.entry.getSize());
+      });
+    }
+
+    pool.shutdown();
+    try {
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      applied.interrupted = true;
+      pool.shutdownNow();
+      // Workers already running still read from the bundles and archives, they have to be done before those close.
+      while (!pool.isTerminated()) {
+        try {
+          pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ignored) {}
+      }
+      Thread.currentThread().interrupt();
+    } finally {
+      if (bundles != null) bundles.close();
+    }
+    return applied;
+  }
+
+  /**
+   * The store is only used with a budget to live in, a budget of 0 turns it off along with links.
+   */
+  static boolean useStore() {
+    return Settings.modloaderStoreBudget.get() > 0;
+  }
+
+  /**
+   * Skips the entries the old custom unzip never wrote, so mods keep mounting the same files.
+   */
+  private static boolean shouldMount(String name) {
+    if ("custom".equals(Settings.compressorUnzipMethod.get()) && !SystemUtil.isMac()) {
+      return !name.contains(".json");
+    }
+    return true;
+  }
+
+  /**
+   * Windows and macOS file systems are case-insensitive, so two mods shipping "A.png" and "a.png" still hit the same file.
+   */
+  static String pathKey(String name) {
+    String key = name.replace('\\', '/');
+    return SystemUtil.isWindows() || SystemUtil.isMac() ? key.toLowerCase(java.util.Locale.ROOT) : key;
+  }
+
+  /**
+   * Mod archives, opened the first time a worker needs something from them and shared from then on.
+   */
+  private static class OpenArchives implements Closeable {
+    private final Map<ZipMod, ZipFile> open = new HashMap<>();
+
+    private InputStream open(ZipMod mod, String name) throws IOException {
+      ZipFile archive = get(mod);
+      ZipEntry entry = archive.getEntry(name);
+      if (entry == null) throw new FileNotFoundException(name);
+      return archive.getInputStream(entry);
+    }
+
+    private synchronized ZipFile get(ZipMod mod) throws IOException {
+      if (this.open.containsKey(mod)) {
+        ZipFile archive = this.open.get(mod);
+        if (archive == null) throw new IOException("Could not open " + mod.getFileName());
+        return archive;
+      }
+      try {
+        ZipFile archive = new ZipFile(mod.getAbsolutePath());
+        this.open.put(mod, archive);
+        return archive;
+      } catch (IOException e) {
+        log.error("Could not open mod archive", "mod", mod.getFileName(), e);
+        this.open.put(mod, null);
+        throw e;
+      }
+    }
+
+    @Override
+    public synchronized void close() {
+      for (ZipFile archive : this.open.values()) {
+        if (archive == null) continue;
+        try {
+          archive.close();
+        } catch (IOException e) {
+          log.warning("Error closing mod archive", "archive", archive.getName(), "cause", e);
+        }
+      }
+      this.open.clear();
+    }
+  }
+
+  /**
+   * Byte-accurate progress of a mount, with the time left shown next to the bar.
+   */
+  private static class Progress {
+    private final long total;
+    private final long estimatedMillis;
+    private final AtomicLong done = new AtomicLong();
+    private long startedAt;
+
+    private Progress(long total, long estimatedMillis) {
+      this.total = total;
+      this.estimatedMillis = estimatedMillis;
+    }
+
+    private void start() {
+      this.startedAt = System.currentTimeMillis();
+      ProgressBar.setBarBytes(0, this.total, this.estimatedMillis);
+    }
+
+    private void advance(long bytes) {
+      long done = this.done.addAndGet(bytes + MountPlan.FILE_COST);
+      long elapsed = elapsed();
+      long left;
+      if (done >= this.total / 20 && elapsed >= 500) {
+        // Enough to go on, extrapolate from how this mount is going.
+        left = (this.total - done) * elapsed / done;
+      } else {
+        left = this.estimatedMillis < 0 ? -1 : Math.max(0, this.estimatedMillis - elapsed);
+      }
+      ProgressBar.setBarBytes(done, this.total, left);
+    }
+
+    private long elapsed() {
+      return this.startedAt == 0 ? 0 : System.currentTimeMillis() - this.startedAt;
+    }
+
+    /**
+     * Throughput of this mount averaged with the last known one, or the last one unchanged if this mount was
+     * too short to say anything.
+     */
+    private long measureRate(long lastRate) {
+      long elapsed = elapsed();
+      if (elapsed < 200) return lastRate;
+      long rate = Math.max(1, this.done.get() / elapsed);
+      return lastRate > 0 ? (rate + lastRate) / 2 : rate;
+    }
+  }
+
+  /**
+   * What {@link #apply} got done.
+   */
+  private static class Applied {
+    private final Set<Owner> failed = Collections.synchronizedSet(new HashSet<>());
+    private final List<MountManifest.Entry> failedRestores = Collections.synchronizedList(new ArrayList<>());
+    private boolean interrupted;
+  }
+
+  static class Owner {
+    final ZipMod mod;
+    final ModArchive.Entry entry;
+    final File file;
+    private boolean verify;
+    private boolean pristine;
+
+    private Owner(ZipMod mod, ModArchive.Entry entry, File file) {
+      this.mod = mod;
+      this.entry = entry;
+      this.file = file;
+    }
+  }
+
+}
@@ -0,0 +1,132 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.LauncherGlobals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Watches mods/ and code-mods/ in the background and keeps the mod list up to date as files come and go.
+ *
+ * Filesystem events are collected until the folders have been quiet for a moment, so copying a large
+ * mod or dropping in a batch of them results in a single update that only inspects the files involved.
+ */
+public class ModWatcher implements Runnable {
+
+  private static final long DEBOUNCE_MS = 1000;
+
+  private static final Set<File> pending = ConcurrentHashMap.newKeySet();
+  private static volatile boolean running = false;
+  private static volatile boolean overflowed = false;
+
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> dirs = new HashMap<>();
+
+  private ModWatcher(WatchService watchService) {
+    this.watchService = watchService;
+  }
+
+  public static synchronized void start() {
+    if (running) return;
+
+    WatchService watchService = null;
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+      ModWatcher watcher = new ModWatcher(watchService);
+      watcher.register(LauncherGlobals.USER_DIR + "/mods/");
+      watcher.register(LauncherGlobals.USER_DIR + "/code-mods/");
+
+      Thread thread = new Thread(watcher, "ModWatcher");
+      thread.setDaemon(true);
+      running = true;
+      thread.start();
+      log.info("Watching mod folders for changes");
+    } catch (IOException e) {
+      log.error("Could not watch mod folders, falling back to manual refresh", e);
+      if (watchService != null) {
+        try {
+          watchService.close();
+        } catch (IOException ignored) {}
+      }
+    }
+  }
+
+  /**
+   * Whether the mod list is being kept up to date, if not a full {@link ModLoader#checkInstalled()} is needed to see changes.
+   */
+  public static boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Applies any changes that are still waiting out the debounce delay right away.
+   */
+  public static synchronized void flush() {
+    if (overflowed) {
+      // Too many events to track individually, just look at everything again.
+      overflowed = false;
+      pending.clear();
+      ModLoader.checkInstalled();
+      return;
+    }
+    if (pending.isEmpty()) return;
+
+    List<File> files = new ArrayList<>(pending);
+    pending.removeAll(files);
+    log.info("Mod folders changed", "files", files.size());
+    ModLoader.applyChanges(files);
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (true) {
+        // Wait for something to happen, then keep collecting until things settle down.
+        collect(this.watchService.take());
+        WatchKey key;
+        while ((key = this.watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+          collect(key);
+        }
+        flush();
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      log.info("Stopped watching mod folders");
+    } catch (Exception e) {
+      log.error("Mod folder watcher failed, falling back to manual refresh", e);
+    } finally {
+      running = false;
+    }
+  }
+
+  private void register(String dir) throws IOException {
+    Path path = Paths.get(dir);
+    WatchKey key = path.register(this.watchService,
+        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    this.dirs.put(key, path);
+  }
+
+  private void collect(WatchKey key) {
+    Path dir = this.dirs.get(key);
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        overflowed = true;
+        continue;
+      }
+      String name = event.context().toString();
+      if (isModFile(dir, name)) pending.add(dir.resolve(name).toFile());
+    }
+    key.reset();
+  }
+
+  private static boolean isModFile(Path dir, String name) {
+    String folder = dir.getFileName().toString();
+    return folder.equals("mods") ? name.endsWith(".zip") : name.endsWith(".jar");
+  }
+
+}
@@ -0,0 +1,176 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.LauncherGlobals;
+import com.lucasallegri.util.FileUtil;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Write-ahead journal for changes to rsrc.
+ *
+ * Before a mount or rebuild touches anything, every path it's about to write is recorded and synced to disk.
+ * Finished paths are appended as they complete and the journal is deleted once the new mount manifest is saved.
+ * Finding a journal on startup means the launcher died halfway, {@link #recover} then only has to deal with the
+ * paths listed in it instead of rebuilding everything.
+ *
+ * Completions are buffered rather than synced one by one. Losing some of them in a crash only makes recovery
+ * treat a few finished paths as unfinished, which is always safe.
+ */
+public class MountJournal implements Closeable {
+
+  private static final int MAGIC = 0x4B4C4D4A; // "KLMJ"
+  private static final int VERSION = 1;
+
+  private static final String JOURNAL_PATH = LauncherGlobals.USER_DIR + "/KnightLauncher/mount.journal";
+
+  public enum Kind {
+    /** Mod files being written or restored during a mount. */
+    MOUNT,
+    /** Files being put back to their bundle version during a rebuild. */
+    RESTORE,
+    /** Every bundle being unpacked again. */
+    DEEP
+  }
+
+  private final FileOutputStream file;
+  private final DataOutputStream out;
+
+  private MountJournal(FileOutputStream file) {
+    this.file = file;
+    this.out = new DataOutputStream(new BufferedOutputStream(file));
+  }
+
+  /**
+   * Records the paths about to be touched and makes sure they're on disk before returning.
+   */
+  public static MountJournal begin(Kind kind, List<String> paths) throws IOException {
+    File journal = new File(JOURNAL_PATH);
+    journal.getParentFile().mkdirs();
+
+    MountJournal mj = new MountJournal(new FileOutputStream(journal));
+    try {
+      mj.out.writeInt(MAGIC);
+      mj.out.writeInt(VERSION);
+      mj.out.writeByte(kind.ordinal());
+      mj.out.writeInt(paths.size());
+      for (String path : paths) mj.out.writeUTF(path);
+      mj.out.flush();
+      mj.file.getFD().sync();
+    } catch (IOException e) {
+      mj.close();
+      throw e;
+    }
+    return mj;
+  }
+
+  /**
+   * Marks the path at the given position of the list passed to {@link #begin} as finished.
+   */
+  public synchronized void done(int index) {
+    try {
+      this.out.writeInt(index);
+    } catch (IOException e) {
+      // Recovery would just redo this path, not worth failing the mount over.
+      log.warning("Failed to journal finished path", "index", index, "cause", e);
+    }
+  }
+
+  /**
+   * Everything the journal covers is done and recorded elsewhere, forget about it.
+   */
+  public void commit() {
+    close();
+    new File(JOURNAL_PATH).delete();
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      this.out.close();
+    } catch (IOException e) {
+      log.warning("Error closing mount journal", "cause", e);
+    }
+  }
+
+  /**
+   * Cleans up after a mount or rebuild that didn't finish, if there was one.
+   *
+   * Unfinished paths are put back to their bundle version. Paths a mount did finish are kept as they are but tracked
+   * as dirty in the manifest, so the next mount rewrites or restores them as needed. An interrupted deep rebuild
+   * leaves nothing to go on, so the manifest is dropped and a full rebuild will follow.
+   *
+   * @return the kind of operation that was interrupted, or null if there was nothing to recover.
+   */
+  public static Kind recover(File target) {
+    File journal = new File(JOURNAL_PATH);
+    if (!journal.exists()) return null;
+
+    Kind kind;
+    List<String> paths = new ArrayList<>();
+    BitSet finished = new BitSet();
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(journal.toPath())))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Unknown journal format");
+      kind = Kind.values()[in.readByte()];
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) paths.add(in.readUTF());
+      while (in.available() >= 4) {
+        int index = in.readInt();
+        if (index >= 0 && index < count) finished.set(index);
+      }
+    } catch (IOException | ArrayIndexOutOfBoundsException e) {
+      // The header is synced before anything gets touched, so this can't have gotten far. Start from scratch.
+      log.error("Unreadable mount journal, falling back to a full rebuild", e);
+      MountManifest.delete();
+      journal.delete();
+      return Kind.DEEP;
+    }
+
+    log.warning("Recovering interrupted operation", "kind", kind, "paths", paths.size(), "finished", finished.cardinality());
+    if (kind == Kind.DEEP) {
+      MountManifest.delete();
+      journal.delete();
+      return kind;
+    }
+
+    // Whatever isn't known to be pristine afterwards stays tracked as dirty.
+    BitSet dirty = new BitSet();
+    // This runs before the launcher window exists, and is rarely more than a handful of files, so keep it simple.
+    try (ResourceBundles bundles = ResourceBundles.open(target)) {
+      for (int i = 0; i < paths.size(); i++) {
+        File file = new File(target, paths.get(i));
+        new File(file.getPath() + FileUtil.TEMP_SUFFIX).delete();
+        if (finished.get(i)) {
+          if (kind == Kind.MOUNT) dirty.set(i);
+          continue;
+        }
+        try {
+          if (!bundles.restore(paths.get(i), file)) file.delete();
+        } catch (IOException e) {
+          log.error("Failed to roll back entry", "entry", paths.get(i), e);
+          dirty.set(i);
+        }
+      }
+    }
+
+    MountManifest manifest = MountManifest.load(ResourceBundles.stamp(target));
+    if (manifest != null) {
+      for (int i = 0; i < paths.size(); i++) {
+        String key = ModMounter.pathKey(paths.get(i));
+        if (dirty.get(i)) {
+          manifest.put(key, new MountManifest.Entry(paths.get(i), "", -1, -1));
+        } else {
+          manifest.remove(key);
+        }
+      }
+      manifest.save();
+    }
+    PristineStore.save();
+    journal.delete();
+    return kind;
+  }
+
+}
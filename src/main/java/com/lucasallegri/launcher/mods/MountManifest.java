@@ -0,0 +1,189 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.LauncherGlobals;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Persisted record of every rsrc file the mod loader has written: target path, source mod, CRC and size.
+ *
+ * The next mount diffs what it wants on disk against this record and only touches the paths that differ.
+ * A manifest is only trusted while the game bundles it was written against are unchanged.
+ * It also carries the throughput measured on previous mounts, used to estimate how long the next one takes.
+ */
+public class MountManifest {
+
+  private static final int MAGIC = 0x4B4C4D4D; // "KLMM"
+  private static final int VERSION = 2;
+
+  private static final String MANIFEST_PATH = LauncherGlobals.USER_DIR + "/KnightLauncher/mount.manifest";
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private long bundleStamp;
+  private long rate;
+
+  public MountManifest(long bundleStamp) {
+    this.bundleStamp = bundleStamp;
+  }
+
+  /**
+   * Whether there is a manifest on disk that was written against the given bundle stamp.
+   */
+  public static boolean isCurrent(long bundleStamp) {
+    File file = new File(MANIFEST_PATH);
+    if (!file.exists()) return false;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != MAGIC) return false;
+      int version = in.readInt();
+      return (version == 1 || version == VERSION) && in.readLong() == bundleStamp;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Loads the manifest from disk, or returns null if there is none or it no longer matches the given bundle stamp.
+   */
+  public static MountManifest load(long bundleStamp) {
+    File file = new File(MANIFEST_PATH);
+    if (!file.exists()) return null;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      int version = in.readInt() == MAGIC ? in.readInt() : -1;
+      if (version != 1 && version != VERSION) {
+        log.warning("Discarding mount manifest with unknown format");
+        return null;
+      }
+      MountManifest manifest = new MountManifest(in.readLong());
+      // Version 1 is the same minus the measured rate.
+      if (version >= 2) manifest.rate = in.readLong();
+      if (manifest.bundleStamp != bundleStamp) {
+        log.info("Game bundles changed since last mount, discarding mount manifest");
+        return null;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        manifest.put(in.readUTF(), new Entry(in.readUTF(), in.readUTF(), in.readLong(), in.readLong()));
+      }
+      return manifest;
+    } catch (IOException e) {
+      log.error("Failed to read mount manifest", e);
+      return null;
+    }
+  }
+
+  public void save() {
+    File file = new File(MANIFEST_PATH);
+    File temp = new File(MANIFEST_PATH + ".tmp");
+    file.getParentFile().mkdirs();
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(this.bundleStamp);
+      out.writeLong(this.rate);
+      out.writeInt(this.entries.size());
+      for (Map.Entry<String, Entry> e : this.entries.entrySet()) {
+        out.writeUTF(e.getKey());
+        out.writeUTF(e.getValue().getPath());
+        out.writeUTF(e.getValue().getMod());
+        out.writeLong(e.getValue().getCrc());
+        out.writeLong(e.getValue().getSize());
+      }
+    } catch (IOException e) {
+      log.error("Failed to write mount manifest", e);
+      return;
+    }
+
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.error("Failed to replace mount manifest", e);
+    }
+  }
+
+  public static void delete() {
+    new File(MANIFEST_PATH).delete();
+  }
+
+  public Entry get(String key) {
+    return this.entries.get(key);
+  }
+
+  public void put(String key, Entry entry) {
+    this.entries.put(key, entry);
+  }
+
+  public Entry remove(String key) {
+    return this.entries.remove(key);
+  }
+
+  public Collection<String> keys() {
+    return Collections.unmodifiableCollection(this.entries.keySet());
+  }
+
+  public int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Measured mount throughput in {@link MountPlan#getCost} units per millisecond, 0 if never measured.
+   */
+  public long getRate() {
+    return this.rate;
+  }
+
+  public void setRate(long rate) {
+    this.rate = rate;
+  }
+
+  public static class Entry {
+
+    private final String path;
+    private final String mod;
+    private final long crc;
+    private final long size;
+
+    public Entry(String path, String mod, long crc, long size) {
+      this.path = path;
+      this.mod = mod;
+      this.crc = crc;
+      this.size = size;
+    }
+
+    public String getPath() {
+      return this.path;
+    }
+
+    public String getMod() {
+      return this.mod;
+    }
+
+    public long getCrc() {
+      return this.crc;
+    }
+
+    public long getSize() {
+      return this.size;
+    }
+
+    public boolean matches(String mod, long crc, long size) {
+      return this.mod.equals(mod) && this.crc == crc && this.size == size;
+    }
+
+    @Override
+    public String toString() {
+      return "[Entry path=" + this.path + ",mod=" + this.mod + ",crc=" + this.crc + ",size=" + this.size + "]";
+    }
+  }
+
+}
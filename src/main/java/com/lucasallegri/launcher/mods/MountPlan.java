@@ -0,0 +1,164 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.mods.data.ZipMod;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything a mount is going to do, worked out before anything on disk is touched.
+ *
+ * Built by {@link ModMounter#plan} and carried out by {@link ModMounter#mount(MountPlan)}, or only looked at for a
+ * dry run. The duration estimate is based on how fast previous mounts went on this machine.
+ */
+public class MountPlan {
+
+  // Opening, replacing and journaling a file costs about as much as writing this many bytes, whatever its size.
+  static final long FILE_COST = 16 * 1024;
+  // Used until a mount has been measured, roughly 32 MB/s.
+  private static final long DEFAULT_RATE = 32 * 1024;
+
+  final File target;
+  final long bundleStamp;
+  final MountManifest previous;
+  final List<ZipMod> mods;
+  final Map<String, ModMounter.Owner> owners;
+  final Set<File> dirs;
+  final List<ModMounter.Owner> writes;
+  final List<MountManifest.Entry> stale;
+  final List<MountManifest.Entry> kept;
+
+  private long writeBytes;
+  private long inflateBytes;
+  private int restoreCount;
+  private long restoreBytes;
+  private int deleteCount;
+
+  MountPlan(File target, long bundleStamp, MountManifest previous, List<ZipMod> mods, Map<String, ModMounter.Owner> owners,
+            Set<File> dirs, List<ModMounter.Owner> writes, List<MountManifest.Entry> stale, List<MountManifest.Entry> kept) {
+    this.target = target;
+    this.bundleStamp = bundleStamp;
+    this.previous = previous;
+    this.mods = mods;
+    this.owners = owners;
+    this.dirs = dirs;
+    this.writes = writes;
+    this.stale = stale;
+    this.kept = kept;
+    count();
+  }
+
+  private void count() {
+    for (ModMounter.Owner owner : this.writes) {
+      long size = owner.entry.getSize();
+      this.writeBytes += size;
+      if (!ModMounter.useStore() || !ContentStore.contains(owner.entry.getCrc(), size)) this.inflateBytes += size;
+    }
+
+    ResourceBundles bundles = null;
+    try {
+      for (MountManifest.Entry entry : this.stale) {
+        long size = PristineStore.sizeOf(entry.getPath());
+        if (size < 0) {
+          // Only open the bundles if the pristine store can't answer.
+          if (bundles == null) bundles = ResourceBundles.open(this.target);
+          size = bundles.sizeOf(entry.getPath());
+        }
+        if (size < 0) {
+          this.deleteCount++;
+        } else {
+          this.restoreCount++;
+          this.restoreBytes += size;
+        }
+      }
+    } finally {
+      if (bundles != null) bundles.close();
+    }
+  }
+
+  /**
+   * Number of mod files that will be written.
+   */
+  public int getWriteCount() {
+    return this.writes.size();
+  }
+
+  /**
+   * Bytes those files add up to. Some of them may turn out to be on disk already and get skipped.
+   */
+  public long getWriteBytes() {
+    return this.writeBytes;
+  }
+
+  /**
+   * Bytes that have to be inflated out of mod archives, the rest is copied or linked from the {@link ContentStore}.
+   */
+  public long getInflateBytes() {
+    return this.inflateBytes;
+  }
+
+  /**
+   * Number of files no mod owns anymore that go back to their pristine version.
+   */
+  public int getRestoreCount() {
+    return this.restoreCount;
+  }
+
+  public long getRestoreBytes() {
+    return this.restoreBytes;
+  }
+
+  /**
+   * Number of files no mod owns anymore that the game doesn't have either, and will be deleted.
+   */
+  public int getDeleteCount() {
+    return this.deleteCount;
+  }
+
+  /**
+   * Number of files mods own that are already in place.
+   */
+  public int getUnchangedCount() {
+    return this.owners.size() - this.writes.size();
+  }
+
+  /**
+   * Path keys of every file carrying out this plan writes, restores or deletes.
+   */
+  public Set<String> getTouchedPaths() {
+    Set<String> touched = new HashSet<>();
+    for (ModMounter.Owner owner : this.writes) touched.add(ModMounter.pathKey(owner.entry.getName()));
+    for (MountManifest.Entry entry : this.stale) touched.add(ModMounter.pathKey(entry.getPath()));
+    return touched;
+  }
+
+  public boolean isEmpty() {
+    return this.writes.isEmpty() && this.stale.isEmpty();
+  }
+
+  /**
+   * Work in the same unit mount throughput is measured in: bytes moved plus a fixed cost per file.
+   */
+  long getCost() {
+    return this.writeBytes + this.restoreBytes + (this.writes.size() + this.stale.size()) * FILE_COST;
+  }
+
+  /**
+   * How long carrying out this plan should take, in milliseconds.
+   */
+  public long getEstimatedMillis() {
+    long rate = this.previous.getRate();
+    return getCost() / (rate > 0 ? rate : DEFAULT_RATE);
+  }
+
+  @Override
+  public String toString() {
+    return "[MountPlan mods=" + this.mods.size() + ", write=" + getWriteCount() + ", writeBytes=" + this.writeBytes
+        + ", inflateBytes=" + this.inflateBytes + ", restore=" + this.restoreCount + ", restoreBytes=" + this.restoreBytes
+        + ", delete=" + this.deleteCount + ", unchanged=" + getUnchangedCount() + ", estimatedMillis=" + getEstimatedMillis() + "]";
+  }
+
+}
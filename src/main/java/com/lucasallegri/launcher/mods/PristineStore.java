@@ -0,0 +1,229 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.LauncherGlobals;
+import com.lucasallegri.util.FileUtil;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Original bytes of every rsrc file a mod has overwritten, kept under KnightLauncher/pristine so single files
+ * can be put back without going through the game bundles.
+ *
+ * A file is preserved right before the first mod write replaces it. The mount engine always replaces files instead
+ * of writing through them, so preserving is just a hard link to the original where the file system allows it.
+ * Contents are addressed by CRC32 and size and shared between paths, each one counts the paths pointing at it and
+ * is deleted when the last of them gets restored. The store belongs to the bundles it was taken from and is dropped
+ * as soon as they change.
+ */
+public class PristineStore {
+
+  private static final int MAGIC = 0x4B4C5053; // "KLPS"
+  private static final int VERSION = 1;
+
+  private static final String STORE_PATH = LauncherGlobals.USER_DIR + "/KnightLauncher/pristine/";
+  private static final String INDEX_PATH = STORE_PATH + "pristine.index";
+
+  private static final Map<String, Entry> paths = new HashMap<>();
+  private static final Map<String, Integer> refs = new HashMap<>();
+  private static long bundleStamp;
+  private static boolean loaded = false;
+  private static boolean linksSupported = true;
+
+  /**
+   * Loads the store for the given bundle stamp, dropping it if it was taken from other bundles.
+   */
+  public static synchronized void load(long bundleStamp) {
+    if (loaded && PristineStore.bundleStamp == bundleStamp) return;
+    paths.clear();
+    refs.clear();
+    loaded = true;
+    PristineStore.bundleStamp = bundleStamp;
+
+    File file = new File(INDEX_PATH);
+    if (file.exists()) {
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+          log.warning("Discarding pristine store with unknown format");
+        } else if (in.readLong() != bundleStamp) {
+          log.info("Game bundles changed, discarding pristine store");
+        } else {
+          int count = in.readInt();
+          for (int i = 0; i < count; i++) add(new Entry(in.readUTF(), in.readLong(), in.readLong()));
+        }
+      } catch (IOException e) {
+        log.error("Failed to read pristine store index", e);
+        paths.clear();
+        refs.clear();
+      }
+    }
+    collect();
+  }
+
+  /**
+   * Keeps the current content of the file as the pristine version of the path, unless there already is one.
+   * Failing to do so is only logged, restoring the path will fall back to the bundles.
+   */
+  public static void preserve(String path, File file) {
+    String key = ModMounter.pathKey(path);
+    synchronized (PristineStore.class) {
+      if (!loaded || paths.containsKey(key)) return;
+    }
+    if (!file.isFile()) return;
+
+    try {
+      Entry entry = new Entry(path, FileUtil.crc32(file), file.length());
+      synchronized (PristineStore.class) {
+        if (paths.containsKey(key)) return;
+        if (!refs.containsKey(entry.contentKey())) store(file, blob(entry.contentKey()));
+        add(entry);
+      }
+    } catch (IOException e) {
+      log.warning("Could not preserve original file", "path", path, "cause", e);
+    }
+  }
+
+  /**
+   * Size of the pristine version the store holds for the path, or -1 if it has none.
+   */
+  public static synchronized long sizeOf(String path) {
+    Entry entry = paths.get(ModMounter.pathKey(path));
+    return entry == null ? -1 : entry.size;
+  }
+
+  /**
+   * Puts the pristine version of the path back and releases it from the store.
+   *
+   * @param onDisk what the mount manifest says was last written to the file, or null if unknown.
+   * @return false if the store doesn't have the path, or its copy is unusable, in which case nothing was written.
+   */
+  public static boolean restore(String path, File file, MountManifest.Entry onDisk) {
+    Entry entry;
+    boolean last;
+    synchronized (PristineStore.class) {
+      entry = paths.remove(ModMounter.pathKey(path));
+      if (entry == null) return false;
+      last = refs.merge(entry.contentKey(), -1, Integer::sum) <= 0;
+      if (last) refs.remove(entry.contentKey());
+    }
+
+    File blob = blob(entry.contentKey());
+    try {
+      if (onDisk != null && onDisk.getCrc() == entry.crc && onDisk.getSize() == entry.size && file.length() == entry.size) {
+        // Already the original, only the reference goes.
+        if (last) blob.delete();
+        return true;
+      }
+      if (!FileUtil.isIdentical(blob, entry.size, entry.crc)) {
+        log.warning("Discarding damaged pristine file", "path", path);
+        blob.delete();
+        return false;
+      }
+      if (last) {
+        // Nothing else needs this copy, hand it back instead of copying it.
+        Files.move(blob.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } else {
+        FileUtil.copyAtomically(blob, file);
+      }
+      return true;
+    } catch (IOException e) {
+      log.warning("Could not restore pristine file", "path", path, "cause", e);
+      return false;
+    }
+  }
+
+  /**
+   * Forgets everything, for when rsrc was just unpacked from the bundles again.
+   */
+  public static synchronized void clear() {
+    paths.clear();
+    refs.clear();
+    collect();
+    new File(INDEX_PATH).delete();
+  }
+
+  public static synchronized void save() {
+    if (!loaded) return;
+    File file = new File(INDEX_PATH);
+    File temp = new File(INDEX_PATH + FileUtil.TEMP_SUFFIX);
+    file.getParentFile().mkdirs();
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(bundleStamp);
+      out.writeInt(paths.size());
+      for (Entry entry : paths.values()) {
+        out.writeUTF(entry.path);
+        out.writeLong(entry.crc);
+        out.writeLong(entry.size);
+      }
+    } catch (IOException e) {
+      log.error("Failed to write pristine store index", e);
+      return;
+    }
+
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.error("Failed to replace pristine store index", e);
+    }
+  }
+
+  private static void add(Entry entry) {
+    paths.put(ModMounter.pathKey(entry.path), entry);
+    refs.merge(entry.contentKey(), 1, Integer::sum);
+  }
+
+  /**
+   * Deletes whatever nothing references, left behind by a launcher that died before saving the index.
+   */
+  private static void collect() {
+    File[] files = new File(STORE_PATH).listFiles();
+    if (files == null) return;
+    for (File file : files) {
+      if (file.getPath().equals(new File(INDEX_PATH).getPath())) continue;
+      if (!refs.containsKey(file.getName())) file.delete();
+    }
+  }
+
+  private static void store(File file, File blob) throws IOException {
+    blob.getParentFile().mkdirs();
+    if (linksSupported) {
+      try {
+        Files.deleteIfExists(blob.toPath());
+        Files.createLink(blob.toPath(), file.toPath());
+        return;
+      } catch (UnsupportedOperationException | FileSystemException e) {
+        log.warning("Hard links not available, copying original files instead", "cause", e);
+        linksSupported = false;
+      }
+    }
+    FileUtil.copyAtomically(file, blob);
+  }
+
+  private static File blob(String contentKey) {
+    return new File(STORE_PATH + contentKey);
+  }
+
+  private static class Entry {
+    private final String path;
+    private final long crc;
+    private final long size;
+
+    private Entry(String path, long crc, long size) {
+      this.path = path;
+      this.crc = crc;
+      this.size = size;
+    }
+
+    private String contentKey() {
+      return String.format("%08x-%x", this.crc, this.size);
+    }
+  }
+
+}
@@ -0,0 +1,270 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.ProgressBar;
+import com.lucasallegri.launcher.settings.Settings;
+import com.lucasallegri.util.DirectoryCache;
+import com.lucasallegri.util.FileUtil;
+import com.lucasallegri.util.StreamUtil;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Random access to the game's rsrc bundles, used to put single files back to their pristine state.
+ */
+public class ResourceBundles implements Closeable {
+
+  // Below this much data per worker, another ZipFile handle costs more than it saves.
+  private static final long CHUNK_BYTES = 16L * 1024 * 1024;
+
+  private final File rsrcDir;
+  private List<ZipFile> bundles;
+
+  private ResourceBundles(File rsrcDir) {
+    this.rsrcDir = rsrcDir;
+  }
+
+  /**
+   * Prepares restoring files into the given rsrc directory. Bundles are only opened once a file has to come from them,
+   * files the {@link PristineStore} holds don't need them. Missing bundles are skipped.
+   */
+  public static ResourceBundles open(File rsrcDir) {
+    PristineStore.load(stamp(rsrcDir));
+    return new ResourceBundles(rsrcDir);
+  }
+
+  private synchronized List<ZipFile> bundles() {
+    if (this.bundles != null) return this.bundles;
+    this.bundles = new ArrayList<>();
+    for (String name : ModLoader.RSRC_BUNDLES) {
+      File bundle = new File(this.rsrcDir, name);
+      if (!bundle.exists()) continue;
+      try {
+        this.bundles.add(new ZipFile(bundle));
+      } catch (IOException e) {
+        log.error("Could not open rsrc bundle", "bundle", bundle, e);
+      }
+    }
+    return this.bundles;
+  }
+
+  /**
+   * Combines size and modification time of every bundle, so a game update invalidates anything built on top of them.
+   */
+  public static long stamp(File rsrcDir) {
+    long stamp = 17;
+    for (String name : ModLoader.RSRC_BUNDLES) {
+      File bundle = new File(rsrcDir, name);
+      stamp = stamp * 31 + bundle.length();
+      stamp = stamp * 31 + bundle.lastModified();
+    }
+    return stamp;
+  }
+
+  /**
+   * Unpacks every bundle into the given rsrc directory, the parallel equivalent of running
+   * {@link FileUtil#unpackJar} on each of them in order.
+   *
+   * Paths shipped by more than one bundle are only written from the last one. Each bundle is split
+   * into chunks of roughly equal size, and every chunk reads through its own {@link ZipFile} handle
+   * so workers don't contend on a single one.
+   *
+   * @return false if the calling thread got interrupted, rsrc is then only partly unpacked. The thread is left
+   *         interrupted, and every worker is done by the time this returns either way.
+   */
+  public static boolean unpackAll(File rsrcDir) {
+    List<Chunk> chunks = new ArrayList<>();
+    Map<String, Integer> owners = new HashMap<>();
+    List<List<ZipEntry>> bundleEntries = new ArrayList<>();
+    List<File> bundleFiles = new ArrayList<>();
+    long totalBytes = 0;
+
+    for (String name : ModLoader.RSRC_BUNDLES) {
+      File bundle = new File(rsrcDir, name);
+      if (!bundle.exists()) continue;
+      List<ZipEntry> entries = new ArrayList<>();
+      try (ZipFile zip = new ZipFile(bundle)) {
+        Enumeration<? extends ZipEntry> e = zip.entries();
+        while (e.hasMoreElements()) {
+          ZipEntry entry = e.nextElement();
+          entries.add(entry);
+          if (!entry.isDirectory()) owners.put(entry.getName(), bundleFiles.size());
+        }
+      } catch (IOException e) {
+        log.error("Could not read rsrc bundle", "bundle", bundle, e);
+        continue;
+      }
+      bundleFiles.add(bundle);
+      bundleEntries.add(entries);
+    }
+
+    DirectoryCache dirs = new DirectoryCache();
+    for (int i = 0; i < bundleFiles.size(); i++) {
+      List<ZipEntry> winners = new ArrayList<>();
+      long bundleBytes = 0;
+      for (ZipEntry entry : bundleEntries.get(i)) {
+        if (entry.isDirectory()) {
+          dirs.ensure(new File(rsrcDir, entry.getName()));
+        } else if (owners.get(entry.getName()) == i) {
+          winners.add(entry);
+          bundleBytes += entry.getSize();
+        }
+      }
+      totalBytes += bundleBytes;
+
+      // Contiguous ranges keep each handle reading forward through the archive.
+      int parts = (int) Math.max(1, Math.min(ModMounter.MAX_WORKERS, bundleBytes / CHUNK_BYTES));
+      long perPart = bundleBytes / parts + 1, acc = 0;
+      Chunk chunk = new Chunk(bundleFiles.get(i));
+      for (ZipEntry entry : winners) {
+        chunk.entries.add(entry);
+        acc += entry.getSize();
+        if (acc >= perPart) {
+          chunks.add(chunk);
+          chunk = new Chunk(bundleFiles.get(i));
+          acc = 0;
+        }
+      }
+      if (!chunk.entries.isEmpty()) chunks.add(chunk);
+    }
+
+    log.info("Unpacking rsrc bundles", "bundles", bundleFiles.size(), "chunks", chunks.size(), "bytes", totalBytes);
+    ProgressBar.setBarBytes(0, totalBytes);
+    AtomicLong written = new AtomicLong();
+    AtomicLong skipped = new AtomicLong();
+    final long total = totalBytes;
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(ModMounter.MAX_WORKERS, chunks.size())));
+    for (Chunk c : chunks) {
+      pool.execute(() -> {
+        try (ZipFile zip = new ZipFile(c.bundle)) {
+          for (ZipEntry entry : c.entries) {
+            if (Thread.currentThread().isInterrupted()) return;
+            File efile = new File(rsrcDir, entry.getName());
+            if (!dirs.ensure(efile.getParentFile())) {
+              log.warning("Failed to create jar entry parent", "jar", c.bundle, "parent", efile.getParentFile());
+              continue;
+            }
+            // Most of rsrc is usually untouched, reading a file back is much cheaper than rewriting it.
+            if (Settings.compressorSkipIdentical.get() && FileUtil.isIdentical(efile, entry.getSize(), entry.getCrc())) {
+              skipped.addAndGet(entry.getSize());
+              ProgressBar.setBarBytes(written.addAndGet(entry.getSize()), total);
+              continue;
+            }
+            // The file may be a hard link into the mod store, it has to be replaced rather than written through.
+            efile.delete();
+            try (InputStream in = zip.getInputStream(entry);
+                 OutputStream out = new BufferedOutputStream(new FileOutputStream(efile))) {
+              StreamUtil.copy(in, out);
+            } catch (IOException e) {
+              log.error("Failure unpacking", "jar", c.bundle, "entry", efile, e);
+            }
+            ProgressBar.setBarBytes(written.addAndGet(entry.getSize()), total);
+          }
+        } catch (IOException e) {
+          log.error("Could not open rsrc bundle", "bundle", c.bundle, e);
+        }
+      });
+    }
+
+    pool.shutdown();
+    try {
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      // Workers stop at their next entry, but whatever they're writing right now has to finish first.
+      while (!pool.isTerminated()) {
+        try {
+          pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ignored) {}
+      }
+      Thread.currentThread().interrupt();
+      log.warning("Unpacking rsrc bundles interrupted", "bytes", written.get());
+      return false;
+    }
+    log.info("Unpacked rsrc bundles", "bytes", written.get(), "unchanged", skipped.get());
+    return true;
+  }
+
+  /**
+   * Restores a single file to its pristine version, replacing it atomically.
+   *
+   * @return false if neither the pristine store nor any bundle has the file, in which case nothing is written.
+   */
+  public boolean restore(String name, File file) throws IOException {
+    return restore(name, file, null);
+  }
+
+  /**
+   * Restores a single file to its pristine version, unless it already holds it. The {@link PristineStore} is
+   * tried first, the bundles only when it doesn't have the file.
+   *
+   * @param onDisk what the mount manifest says was last written to the file, or null if unknown.
+   *               When it has a CRC the file on disk doesn't need to be read to know whether it differs.
+   * @return false if neither the pristine store nor any bundle has the file, in which case nothing is written.
+   */
+  public boolean restore(String name, File file, MountManifest.Entry onDisk) throws IOException {
+    if (PristineStore.restore(name, file, onDisk)) return true;
+    List<ZipFile> bundles = bundles();
+    for (int i = bundles.size() - 1; i >= 0; i--) {
+      ZipFile bundle = bundles.get(i);
+      ZipEntry entry = bundle.getEntry(name);
+      if (entry == null || entry.isDirectory()) continue;
+      if (Settings.compressorSkipIdentical.get()) {
+        boolean known = onDisk != null && onDisk.getCrc() >= 0;
+        if (known ? onDisk.getCrc() == entry.getCrc() && onDisk.getSize() == entry.getSize() && file.length() == entry.getSize()
+            : FileUtil.isIdentical(file, entry.getSize(), entry.getCrc())) {
+          return true;
+        }
+      }
+      try (InputStream in = bundle.getInputStream(entry)) {
+        FileUtil.writeAtomically(in, file);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Size of the given file in the bundles, or -1 if none of them has it.
+   */
+  public long sizeOf(String name) {
+    List<ZipFile> bundles = bundles();
+    for (int i = bundles.size() - 1; i >= 0; i--) {
+      ZipEntry entry = bundles.get(i).getEntry(name);
+      if (entry != null && !entry.isDirectory()) return entry.getSize();
+    }
+    return -1;
+  }
+
+  private static class Chunk {
+    private final File bundle;
+    private final List<ZipEntry> entries = new ArrayList<>();
+
+    private Chunk(File bundle) {
+      this.bundle = bundle;
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (this.bundles == null) return;
+    for (ZipFile bundle : this.bundles) {
+      try {
+        bundle.close();
+      } catch (IOException e) {
+        log.warning("Error closing rsrc bundle", "bundle", bundle.getName(), "cause", e);
+      }
+    }
+    this.bundles.clear();
+  }
+
+}
@@ -0,0 +1,199 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.LauncherGlobals;
+import com.lucasallegri.util.FileUtil;
+
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Puts the safeguard files over rsrc so no cheat mod slips in.
+ *
+ * Entries are streamed straight out of the launcher's own resource. What was applied last time is remembered along
+ * with the safeguard version, so as long as neither changed, only the safeguard files a mount actually touched
+ * get written again and nothing is read at all when there are none.
+ */
+public class Safeguard {
+
+  private static final int MAGIC = 0x4B4C5347; // "KLSG"
+  private static final int VERSION = 1;
+
+  private static final String RESOURCE = "/modules/safeguard/bundle.zip";
+  private static final String STATE_PATH = LauncherGlobals.USER_DIR + "/KnightLauncher/safeguard.state";
+
+  /**
+   * Makes sure every safeguard file is in place.
+   *
+   * @param touched path keys (see {@link ModMounter#pathKey}) written or restored since the safeguard was last applied.
+   */
+  public static synchronized void apply(File rsrcDir, Collection<String> touched) {
+    long version = version();
+    Map<String, Applied> applied = load(version);
+
+    if (applied != null) {
+      Set<String> dirty = new HashSet<>();
+      for (Map.Entry<String, Applied> e : applied.entrySet()) {
+        // A file that changed size was touched by something we don't know about.
+        if (touched.contains(e.getKey()) || new File(rsrcDir, e.getValue().path).length() != e.getValue().size) {
+          dirty.add(e.getKey());
+        }
+      }
+      if (dirty.isEmpty()) {
+        log.info("Safeguard already in place");
+        return;
+      }
+      write(rsrcDir, dirty, false);
+      return;
+    }
+
+    // Nothing to go on, check every file and remember what's there afterwards.
+    Map<String, Applied> written = write(rsrcDir, null, true);
+    if (written != null) save(version, written);
+  }
+
+  /**
+   * Forgets what was applied, for when rsrc changed in ways mounts don't report, like a rebuild.
+   */
+  public static synchronized void invalidate() {
+    new File(STATE_PATH).delete();
+  }
+
+  /**
+   * Streams the safeguard entries into rsrc.
+   *
+   * @param only path keys to write, null for all of them.
+   * @param skipIdentical whether files that already hold the safeguard version are left alone.
+   * @return every safeguard entry, or null if the safeguard couldn't be read.
+   */
+  private static Map<String, Applied> write(File rsrcDir, Set<String> only, boolean skipIdentical) {
+    Map<String, Applied> entries = new HashMap<>();
+    int written = 0;
+    try (InputStream resource = Safeguard.class.getResourceAsStream(RESOURCE)) {
+      if (resource == null) throw new FileNotFoundException(RESOURCE);
+      ZipInputStream zip = new ZipInputStream(new BufferedInputStream(resource));
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        if (entry.isDirectory()) continue;
+        String key = ModMounter.pathKey(entry.getName());
+        File file = new File(rsrcDir, entry.getName());
+        long crc = entry.getCrc(), size = entry.getSize();
+
+        if ((only != null && !only.contains(key)) || (skipIdentical && FileUtil.isIdentical(file, size, crc))) {
+          entries.put(key, new Applied(entry.getName(), crc, size));
+          continue;
+        }
+        file.getParentFile().mkdirs();
+        // Replacing rather than writing through, the file may be a hard link into one of the stores.
+        CheckedInputStream in = new CheckedInputStream(zip, new CRC32());
+        FileUtil.writeAtomically(in, file);
+        entries.put(key, new Applied(entry.getName(), in.getChecksum().getValue(), file.length()));
+        written++;
+      }
+    } catch (IOException e) {
+      log.error("Failed to apply safeguard", e);
+      invalidate();
+      return null;
+    }
+    log.info("Applied safeguard", "entries", entries.size(), "written", written);
+    return entries;
+  }
+
+  /**
+   * Identifies the safeguard shipped with this launcher. From a jar that's the stored CRC of the resource,
+   * which doesn't need it read, otherwise it's computed.
+   */
+  private static long version() {
+    URL url = Safeguard.class.getResource(RESOURCE);
+    if (url == null) return -1;
+    try {
+      URLConnection connection = url.openConnection();
+      if (connection instanceof JarURLConnection) {
+        JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+        if (entry != null && entry.getCrc() >= 0) return entry.getCrc();
+      }
+      try (CheckedInputStream in = new CheckedInputStream(connection.getInputStream(), new CRC32())) {
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) != -1);
+        return in.getChecksum().getValue();
+      }
+    } catch (IOException e) {
+      log.warning("Could not identify safeguard version", "cause", e);
+      return -1;
+    }
+  }
+
+  /**
+   * @return what was last applied, or null if unknown or applied from another safeguard version.
+   */
+  private static Map<String, Applied> load(long version) {
+    File file = new File(STATE_PATH);
+    if (version < 0 || !file.exists()) return null;
+
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != version) return null;
+      int count = in.readInt();
+      Map<String, Applied> applied = new HashMap<>(count * 2);
+      for (int i = 0; i < count; i++) {
+        Applied entry = new Applied(in.readUTF(), in.readLong(), in.readLong());
+        applied.put(ModMounter.pathKey(entry.path), entry);
+      }
+      return applied;
+    } catch (IOException e) {
+      log.warning("Discarding unreadable safeguard state", "cause", e);
+      return null;
+    }
+  }
+
+  private static void save(long version, Map<String, Applied> applied) {
+    if (version < 0) return;
+    File file = new File(STATE_PATH);
+    File temp = new File(STATE_PATH + FileUtil.TEMP_SUFFIX);
+    file.getParentFile().mkdirs();
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(version);
+      out.writeInt(applied.size());
+      for (Applied entry : applied.values()) {
+        out.writeUTF(entry.path);
+        out.writeLong(entry.crc);
+        out.writeLong(entry.size);
+      }
+    } catch (IOException e) {
+      log.error("Failed to write safeguard state", e);
+      return;
+    }
+
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.error("Failed to replace safeguard state", e);
+    }
+  }
+
+  private static class Applied {
+    private final String path;
+    private final long crc;
+    private final long size;
+
+    private Applied(String path, long crc, long size) {
+      this.path = path;
+      this.crc = crc;
+      this.size = size;
+    }
+  }
+
+}
@@ -1,5 +1,7 @@
 package com.lucasallegri.launcher.mods.data;
 
+import com.lucasallegri.launcher.LauncherGlobals;
+
 import static com.lucasallegri.launcher.mods.Log.log;
 
 public class JarMod extends Mod {
@@ -14,6 +16,10 @@ public class JarMod extends Mod {
     this.fileName = fileName;
   }
 
+  public String getAbsolutePath() {
+    return LauncherGlobals.USER_DIR + "/code-mods/" + this.fileName;
+  }
+
   public void mount () {
     log.info("Jar Mod mounted successfully", "mod", this.displayName);
   }
@@ -68,7 +68,8 @@ public abstract class Mod {
     this.isEnabled = enabled;
   }
 
-  public abstract void mount();
+  public abstract String getAbsolutePath();
+
   public abstract void wasAdded();
 
   @Override
@@ -0,0 +1,221 @@
+package com.lucasallegri.launcher.mods.data;
+
+import com.lucasallegri.util.Compressor;
+import com.lucasallegri.util.StreamUtil;
+import org.json.JSONObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static com.lucasallegri.launcher.mods.Log.log;
+
+/**
+ * Everything the mod loader needs to know about a mod archive, read in a single open:
+ * its stat data, fingerprint, mod.json metadata and full entry table.
+ */
+public class ModArchive {
+
+  private final String path;
+  private final long size;
+  private final long modified;
+  private final String fileKey;
+  private final String fingerprint;
+  private final String name;
+  private final String description;
+  private final String author;
+  private final String version;
+  private final List<Entry> entries;
+
+  private ModArchive(String path, long size, long modified, String fileKey, String fingerprint,
+                     String name, String description, String author, String version, List<Entry> entries) {
+    this.path = path;
+    this.size = size;
+    this.modified = modified;
+    this.fileKey = fileKey;
+    this.fingerprint = fingerprint;
+    this.name = name;
+    this.description = description;
+    this.author = author;
+    this.version = version;
+    this.entries = Collections.unmodifiableList(entries);
+  }
+
+  /**
+   * Opens the archive once and reads its metadata, fingerprint and entry table.
+   */
+  public static ModArchive inspect(File file) throws IOException {
+    BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+
+    try (ZipFile zip = new ZipFile(file)) {
+      List<Entry> entries = new ArrayList<>(zip.size());
+      Enumeration<? extends ZipEntry> e = zip.entries();
+      while (e.hasMoreElements()) {
+        ZipEntry entry = e.nextElement();
+        entries.add(new Entry(entry.getName(), entry.getCrc(), entry.getSize(), entry.getCompressedSize(), entry.isDirectory()));
+      }
+
+      String name = null, description = null, author = null, version = null;
+      ZipEntry json = zip.getEntry("mod.json");
+      if (json != null) {
+        try (InputStream in = zip.getInputStream(json)) {
+          JSONObject mod = new JSONObject(new String(StreamUtil.toByteArray(in), StandardCharsets.UTF_8)).getJSONObject("mod");
+          name = mod.getString("name");
+          description = mod.getString("description");
+          author = mod.getString("author");
+          version = mod.getString("version");
+        } catch (Exception ex) {
+          log.warning("Could not parse mod.json", "file", file, "cause", ex);
+          name = description = author = version = null;
+        }
+      }
+
+      return new ModArchive(file.getAbsolutePath(), attrs.size(), attrs.lastModifiedTime().toMillis(), fileKey(attrs),
+          Compressor.getZipFingerprint(zip, false), name, description, author, version, entries);
+    }
+  }
+
+  /**
+   * Whether the file on disk still has the stat data this archive was inspected with.
+   */
+  public boolean isCurrent(File file) {
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+      return attrs.size() == this.size && attrs.lastModifiedTime().toMillis() == this.modified
+          && fileKey(attrs).equals(this.fileKey);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static String fileKey(BasicFileAttributes attrs) {
+    return attrs.fileKey() == null ? "" : attrs.fileKey().toString();
+  }
+
+  /**
+   * Writes everything but the path, which the caller keys the record by.
+   */
+  public void write(DataOutputStream out) throws IOException {
+    out.writeLong(this.size);
+    out.writeLong(this.modified);
+    out.writeUTF(this.fileKey);
+    out.writeUTF(this.fingerprint);
+    out.writeBoolean(this.name != null);
+    if (this.name != null) {
+      out.writeUTF(this.name);
+      out.writeUTF(this.description);
+      out.writeUTF(this.author);
+      out.writeUTF(this.version);
+    }
+    out.writeInt(this.entries.size());
+    for (Entry entry : this.entries) {
+      out.writeUTF(entry.name);
+      out.writeLong(entry.crc);
+      out.writeLong(entry.size);
+      out.writeLong(entry.compressedSize);
+      out.writeBoolean(entry.directory);
+    }
+  }
+
+  public static ModArchive read(String path, DataInputStream in) throws IOException {
+    long size = in.readLong();
+    long modified = in.readLong();
+    String fileKey = in.readUTF();
+    String fingerprint = in.readUTF();
+    String name = null, description = null, author = null, version = null;
+    if (in.readBoolean()) {
+      name = in.readUTF();
+      description = in.readUTF();
+      author = in.readUTF();
+      version = in.readUTF();
+    }
+    int count = in.readInt();
+    List<Entry> entries = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      entries.add(new Entry(in.readUTF(), in.readLong(), in.readLong(), in.readLong(), in.readBoolean()));
+    }
+    return new ModArchive(path, size, modified, fileKey, fingerprint, name, description, author, version, entries);
+  }
+
+  public String getPath() {
+    return this.path;
+  }
+
+  public String getFingerprint() {
+    return this.fingerprint;
+  }
+
+  public boolean hasMetadata() {
+    return this.name != null;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public String getDescription() {
+    return this.description;
+  }
+
+  public String getAuthor() {
+    return this.author;
+  }
+
+  public String getVersion() {
+    return this.version;
+  }
+
+  public List<Entry> getEntries() {
+    return this.entries;
+  }
+
+  @Override
+  public String toString() {
+    return "[ModArchive path=" + this.path + ",fingerprint=" + this.fingerprint + ",entries=" + this.entries.size() + "]";
+  }
+
+  public static class Entry {
+
+    private final String name;
+    private final long crc;
+    private final long size;
+    private final long compressedSize;
+    private final boolean directory;
+
+    public Entry(String name, long crc, long size, long compressedSize, boolean directory) {
+      this.name = name;
+      this.crc = crc;
+      this.size = size;
+      this.compressedSize = compressedSize;
+      this.directory = directory;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public long getCrc() {
+      return this.crc;
+    }
+
+    public long getSize() {
+      return this.size;
+    }
+
+    public long getCompressedSize() {
+      return this.compressedSize;
+    }
+
+    public boolean isDirectory() {
+      return this.directory;
+    }
+  }
+
+}
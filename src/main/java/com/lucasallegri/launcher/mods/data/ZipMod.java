@@ -1,8 +1,6 @@
 package com.lucasallegri.launcher.mods.data;
 
 import com.lucasallegri.launcher.LauncherGlobals;
-import com.lucasallegri.util.Compressor;
-import com.lucasallegri.util.SystemUtil;
 
 import static com.lucasallegri.launcher.mods.Log.log;
 
@@ -18,9 +16,8 @@ public class ZipMod extends Mod {
     this.fileName = fileName;
   }
 
-  public void mount() {
-    Compressor.unzip(LauncherGlobals.USER_DIR + "/mods/" + this.fileName, LauncherGlobals.USER_DIR + "/rsrc/", SystemUtil.isMac());
-    log.info("Zip Mod mounted successfully", "mod", this.displayName);
+  public String getAbsolutePath() {
+    return LauncherGlobals.USER_DIR + "/mods/" + this.fileName;
   }
 
   public void wasAdded() {
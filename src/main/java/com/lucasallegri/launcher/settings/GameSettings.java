@@ -14,57 +14,79 @@ import static com.lucasallegri.launcher.settings.Log.log;
 
 public class GameSettings {
 
-  public static void load() {
-    try {
+  // Whether extra.txt and the game's connection config have to be written again. Both are on the first launch.
+  private static volatile boolean extraDirty = true;
+  private static volatile boolean connectionDirty = true;
+
+  static {
+    Settings.addListener(() -> extraDirty = true, Settings.gameUseStringDeduplication, Settings.gameDisableExplicitGC,
+        Settings.gameUseCustomGC, Settings.gameGarbageCollector, Settings.gameUndecoratedWindow, Settings.gameMemory,
+        Settings.gameAdditionalArgs);
+    Settings.addListener(() -> connectionDirty = true, Settings.gameEndpoint, Settings.gamePort, Settings.gamePublicKey,
+        Settings.gameGetdownURL);
+  }
 
-      ProgressBar.startTask();
-      ProgressBar.setBarMax(1);
-      ProgressBar.setBarValue(0);
-      ProgressBar.setState(Locale.getValue("m.apply"));
-
-      /**
-       * Back up the current extra.txt if there's no back up already.
-       * This is useful if an user installs Knight Launcher and had already
-       * made it's own extra.txt, this way it won't get deleted forever, just renamed.
-       */
-      if(!FileUtil.fileExists("old-extra.txt")) {
-        FileUtil.rename(new File("extra.txt"), new File("old-extra.txt"));
+  public static void load() {
+    ProgressBar.startTask();
+    ProgressBar.setBarMax(1);
+    ProgressBar.setBarValue(0);
+    ProgressBar.setState(Locale.getValue("m.apply"));
+
+    // Cleared before writing, so a change made meanwhile gets written next time.
+    if (extraDirty) {
+      extraDirty = false;
+      try {
+        writeExtraArgs();
+      } catch (FileNotFoundException | UnsupportedEncodingException e) {
+        extraDirty = true;
+        log.error(e);
       }
+    }
+    if (connectionDirty) {
+      connectionDirty = false;
+      loadConnectionSettings();
+    }
 
-      PrintWriter writer = new PrintWriter("extra.txt", "UTF-8");
+    ProgressBar.setBarValue(1);
+    ProgressBar.finishTask();
+  }
 
-      if (Settings.gameUseStringDeduplication) writer.println("-XX:+UseStringDeduplication");
-      if (Settings.gameDisableExplicitGC) writer.println("-XX:+DisableExplicitGC");
+  private static void writeExtraArgs() throws FileNotFoundException, UnsupportedEncodingException {
+    /**
+     * Back up the current extra.txt if there's no back up already.
+     * This is useful if an user installs Knight Launcher and had already
+     * made it's own extra.txt, this way it won't get deleted forever, just renamed.
+     */
+    if(!FileUtil.fileExists("old-extra.txt")) {
+      FileUtil.rename(new File("extra.txt"), new File("old-extra.txt"));
+    }
 
-      if (Settings.gameUseCustomGC) {
-        if (Settings.gameGarbageCollector.equals("ParallelOld")) {
-          writer.println("-XX:+UseParallelGC");
-          writer.println("-XX:+Use" + Settings.gameGarbageCollector + "GC");
-        } else {
-          writer.println("-XX:+Use" + Settings.gameGarbageCollector + "GC");
-        }
-      }
+    PrintWriter writer = new PrintWriter("extra.txt", "UTF-8");
 
-      if (Settings.gameUndecoratedWindow) writer.println("-Dorg.lwjgl.opengl.Window.undecorated=true");
+    if (Settings.gameUseStringDeduplication.get()) writer.println("-XX:+UseStringDeduplication");
+    if (Settings.gameDisableExplicitGC.get()) writer.println("-XX:+DisableExplicitGC");
 
-      if (Settings.gameGarbageCollector.equals("G1")) {
-        writer.println("-Xms" + Settings.gameMemory + "M");
-        writer.println("-Xmx" + Settings.gameMemory + "M");
+    if (Settings.gameUseCustomGC.get()) {
+      if (Settings.gameGarbageCollector.get().equals("ParallelOld")) {
+        writer.println("-XX:+UseParallelGC");
+        writer.println("-XX:+Use" + Settings.gameGarbageCollector.get() + "GC");
       } else {
-        writer.println("-Xms512M");
-        writer.println("-Xmx" + Settings.gameMemory + "M");
+        writer.println("-XX:+Use" + Settings.gameGarbageCollector.get() + "GC");
       }
+    }
 
-      writer.println(Settings.gameAdditionalArgs);
-      writer.close();
+    if (Settings.gameUndecoratedWindow.get()) writer.println("-Dorg.lwjgl.opengl.Window.undecorated=true");
 
-      loadConnectionSettings();
-
-      ProgressBar.setBarValue(1);
-      ProgressBar.finishTask();
-    } catch (FileNotFoundException | UnsupportedEncodingException e) {
-      log.error(e);
+    if (Settings.gameGarbageCollector.get().equals("G1")) {
+      writer.println("-Xms" + Settings.gameMemory.get() + "M");
+      writer.println("-Xmx" + Settings.gameMemory.get() + "M");
+    } else {
+      writer.println("-Xms512M");
+      writer.println("-Xmx" + Settings.gameMemory.get() + "M");
     }
+
+    writer.println(Settings.gameAdditionalArgs.get());
+    writer.close();
   }
 
   private static void loadConnectionSettings() {
@@ -80,11 +102,11 @@ public class GameSettings {
       log.error(e);
     }
 
-    properties.setProperty("server_host", Settings.gameEndpoint);
-    properties.setProperty("server_ports", String.valueOf(Settings.gamePort));
-    properties.setProperty("datagram_ports", String.valueOf(Settings.gamePort));
-    properties.setProperty("key.public", Settings.gamePublicKey);
-    properties.setProperty("client_root_url", Settings.gameGetdownURL);
+    properties.setProperty("server_host", Settings.gameEndpoint.get());
+    properties.setProperty("server_ports", String.valueOf(Settings.gamePort.get()));
+    properties.setProperty("datagram_ports", String.valueOf(Settings.gamePort.get()));
+    properties.setProperty("key.public", Settings.gamePublicKey.get());
+    properties.setProperty("client_root_url", Settings.gameGetdownURL.get());
 
     try {
       properties.store(Files.newOutputStream(new File(LauncherGlobals.USER_DIR + "\\deployment.properties").toPath()), null);
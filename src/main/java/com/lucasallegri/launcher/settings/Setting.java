@@ -0,0 +1,97 @@
+package com.lucasallegri.launcher.settings;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.lucasallegri.launcher.settings.Log.log;
+
+/**
+ * A single launcher setting backed by a key in the prop file.
+ *
+ * The value is parsed once when settings are loaded and can be read from any thread. Setting it writes it back to
+ * the prop file and tells listeners, but only if it actually changed.
+ */
+public class Setting<T> {
+
+  private final String key;
+  private final T defaultValue;
+  private final Function<String, T> parser;
+  private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+  private volatile T value;
+
+  private Setting(String key, T defaultValue, Function<String, T> parser) {
+    this.key = key;
+    this.defaultValue = defaultValue;
+    this.parser = parser;
+    this.value = defaultValue;
+  }
+
+  static Setting<Boolean> ofBoolean(String key, boolean defaultValue) {
+    return new Setting<>(key, defaultValue, Boolean::parseBoolean);
+  }
+
+  static Setting<Integer> ofInt(String key, int defaultValue) {
+    return new Setting<>(key, defaultValue, raw -> Integer.parseInt(raw.trim()));
+  }
+
+  static Setting<String> ofString(String key, String defaultValue) {
+    return new Setting<>(key, defaultValue, raw -> raw);
+  }
+
+  public String getKey() {
+    return this.key;
+  }
+
+  public T get() {
+    return this.value;
+  }
+
+  public void set(T value) {
+    if (update(value)) SettingsProperties.setValue(this.key, format(value));
+  }
+
+  /**
+   * Called with the new value every time it changes, on whichever thread changed it.
+   */
+  public void addListener(Consumer<T> listener) {
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Picks up the value from the prop file, falling back to the default if it's missing or can't be parsed.
+   */
+  void load() {
+    String raw = SettingsProperties.getValue(this.key);
+    T parsed = this.defaultValue;
+    if (raw != null) {
+      try {
+        parsed = this.parser.apply(raw);
+      } catch (RuntimeException e) {
+        log.warning("Invalid setting value, using default", "key", this.key, "value", raw, "default", this.defaultValue);
+      }
+    }
+    update(parsed);
+  }
+
+  private boolean update(T value) {
+    synchronized (this) {
+      if (Objects.equals(this.value, value)) return false;
+      this.value = value;
+    }
+    for (Consumer<T> listener : this.listeners) listener.accept(value);
+    return true;
+  }
+
+  private static String format(Object value) {
+    return value == null ? "" : value.toString();
+  }
+
+  @Override
+  public String toString() {
+    return this.key + "=" + this.value;
+  }
+
+}
@@ -1,32 +1,65 @@
 package com.lucasallegri.launcher.settings;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every launcher setting, declared with its prop file key and default.
+ */
 public class Settings {
 
-  public static String gamePlatform = "Steam";
-  public static String lang = "en";
-  public static Boolean doRebuilds = true;
-  public static Boolean keepOpen = false;
-  public static Boolean createShortcut = true;
-  public static String compressorUnzipMethod = "4j";
-  public static int compressorExtractBuffer = 8196;
-  public static int gameMemory = 512;
-  public static Boolean gameUseStringDeduplication = false;
-  public static Boolean gameDisableExplicitGC = false;
-  public static Boolean gameUndecoratedWindow = false;
-  public static Boolean gameUseCustomGC = false;
-  public static String gameGarbageCollector = "ParallelOld";
-  public static String gameAdditionalArgs = null;
-  public static String launcherStyle = "dark";
-  public static Boolean isOutdated = false;
-  public static Boolean jvmPatched = false;
-  public static Boolean ingameRPCSetup = false;
-  public static Boolean useIngameRPC = true;
-  public static Boolean allowModding = false;
-  public static String gameEndpoint = "game.spiralknights.com";
-  public static int gamePort = 47624;
-  public static String gamePublicKey = "a5ed0dc3892b9472cfb668e236064e989e95945dad18f3d7e7d8e474d6e03de38bc044c3429b9ca649d0881d601c0eb8ffebc3756f0503f73a8ca1760943ea0e8921ad6f8102026586db3133844bbadbcfcfc666d23982d7684511fbf6cd8bb1d02a14270d0854098d16fe88f99c05825b0fe1b6fd497709106f2c418796aaf7aab7c92f26fcd9fbb3c43df48075fed8dd931273a7b0a333c8de5967797874c1944aed65b47f0792b273a529ac22a2dce08dad04eeebeeff67c7bc99b97682bff488038b28e24f4b5eea77ed966caede52f2c1ecf2b403110a9765daa81ddf718129a040823bead3a0bdca70ef6d08f483757a6d3b6e01fbbcb32006b7872bcd#10001";
-  public static String gameGetdownURL = "http://gamemedia2.spiralknights.com";
-  public static String gameGetdownFullURL = "http://gamemedia2.spiralknights.com/spiral/client/";
-  public static boolean connectionOverwriteAgreed = false;
+  private static final List<Setting<?>> registry = new ArrayList<>();
+
+  public static final Setting<String> gamePlatform = register(Setting.ofString("game.platform", "Steam"));
+  public static final Setting<String> lang = register(Setting.ofString("launcher.lang", "en"));
+  public static final Setting<Boolean> doRebuilds = register(Setting.ofBoolean("launcher.rebuilds", true));
+  public static final Setting<Boolean> keepOpen = register(Setting.ofBoolean("launcher.keepOpen", false));
+  public static final Setting<Boolean> createShortcut = register(Setting.ofBoolean("launcher.createShortcut", true));
+  public static final Setting<String> modloaderMountMode = register(Setting.ofString("modloader.mountMode", "copy"));
+  public static final Setting<Integer> modloaderStoreBudget = register(Setting.ofInt("modloader.storeBudget", 0));
+  public static final Setting<String> modloaderMountOrder = register(Setting.ofString("modloader.mountOrder", ""));
+  public static final Setting<Boolean> modloaderDryRun = register(Setting.ofBoolean("modloader.dryRun", false));
+  // Applies to the JVM patcher and Discord RPC module unzips only, zip mods are read by the mod mounter.
+  public static final Setting<String> compressorUnzipMethod = register(Setting.ofString("compressor.unzipMethod", "4j"));
+  public static final Setting<Integer> compressorExtractBuffer = register(Setting.ofInt("compressor.extractBuffer", 8196));
+  public static final Setting<Boolean> compressorSkipIdentical = register(Setting.ofBoolean("compressor.skipIdentical", true));
+  public static final Setting<Integer> gameMemory = register(Setting.ofInt("game.memory", 512));
+  public static final Setting<Boolean> gameUseStringDeduplication = register(Setting.ofBoolean("game.useStringDeduplication", false));
+  public static final Setting<Boolean> gameDisableExplicitGC = register(Setting.ofBoolean("game.disableExplicitGC", false));
+  public static final Setting<Boolean> gameUndecoratedWindow = register(Setting.ofBoolean("game.undecoratedWindow", false));
+  public static final Setting<Boolean> gameUseCustomGC = register(Setting.ofBoolean("game.useCustomGC", false));
+  public static final Setting<String> gameGarbageCollector = register(Setting.ofString("game.garbageCollector", "ParallelOld"));
+  public static final Setting<String> gameAdditionalArgs = register(Setting.ofString("game.additionalArgs", null));
+  public static final Setting<String> launcherStyle = register(Setting.ofString("launcher.style", "dark"));
+  public static final Setting<Boolean> jvmPatched = register(Setting.ofBoolean("launcher.jvm_patched", false));
+  public static final Setting<Boolean> ingameRPCSetup = register(Setting.ofBoolean("launcher.ingameRPCSetup", false));
+  public static final Setting<Boolean> useIngameRPC = register(Setting.ofBoolean("launcher.useIngameRPC", true));
+  public static final Setting<Boolean> allowModding = register(Setting.ofBoolean("launcher.allowModding", false));
+  public static final Setting<String> gameEndpoint = register(Setting.ofString("game.endpoint", "game.spiralknights.com"));
+  public static final Setting<Integer> gamePort = register(Setting.ofInt("game.port", 47624));
+  public static final Setting<String> gamePublicKey = register(Setting.ofString("game.publicKey", "a5ed0dc3892b9472cfb668e236064e989e95945dad18f3d7e7d8e474d6e03de38bc044c3429b9ca649d0881d601c0eb8ffebc3756f0503f73a8ca1760943ea0e8921ad6f8102026586db3133844bbadbcfcfc666d23982d7684511fbf6cd8bb1d02a14270d0854098d16fe88f99c05825b0fe1b6fd497709106f2c418796aaf7aab7c92f26fcd9fbb3c43df48075fed8dd931273a7b0a333c8de5967797874c1944aed65b47f0792b273a529ac22a2dce08dad04eeebeeff67c7bc99b97682bff488038b28e24f4b5eea77ed966caede52f2c1ecf2b403110a9765daa81ddf718129a040823bead3a0bdca70ef6d08f483757a6d3b6e01fbbcb32006b7872bcd#10001"));
+  public static final Setting<String> gameGetdownURL = register(Setting.ofString("game.getdownURL", "http://gamemedia2.spiralknights.com"));
+  public static final Setting<String> gameGetdownFullURL = register(Setting.ofString("game.getdownFullURL", "http://gamemedia2.spiralknights.com/spiral/client/"));
+  public static final Setting<Boolean> connectionOverwriteAgreed = register(Setting.ofBoolean("launcher.connectionOverwriteAgreed", false));
+
+  // Found out at runtime, not stored.
+  public static volatile boolean isOutdated = false;
+
+  public static List<Setting<?>> all() {
+    return Collections.unmodifiableList(registry);
+  }
+
+  /**
+   * Runs the listener whenever any of the given settings changes.
+   */
+  public static void addListener(Runnable listener, Setting<?>... settings) {
+    for (Setting<?> setting : settings) setting.addListener(value -> listener.run());
+  }
+
+  private static <T> Setting<T> register(Setting<T> setting) {
+    registry.add(setting);
+    return setting;
+  }
 
 }
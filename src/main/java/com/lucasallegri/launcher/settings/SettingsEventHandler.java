@@ -13,117 +13,97 @@ import java.io.File;
 public class SettingsEventHandler {
 
   public static void platformChangeEvent(ItemEvent event) {
-    Settings.gamePlatform = (String) SettingsGUI.choicePlatform.getSelectedItem();
-    SettingsProperties.setValue("game.platform", (String) SettingsGUI.choicePlatform.getSelectedItem());
+    Settings.gamePlatform.set((String) SettingsGUI.choicePlatform.getSelectedItem());
   }
 
   public static void rebuildsChangeEvent(ActionEvent event) {
-    Settings.doRebuilds = SettingsGUI.switchCleaning.isSelected();
-    SettingsProperties.setValue("launcher.rebuilds", SettingsGUI.switchCleaning.isSelected() ? "true" : "false");
+    Settings.doRebuilds.set(SettingsGUI.switchCleaning.isSelected());
   }
 
   public static void keepOpenChangeEvent(ActionEvent event) {
-    Settings.keepOpen = SettingsGUI.switchKeepOpen.isSelected();
-    SettingsProperties.setValue("launcher.keepOpen", SettingsGUI.switchKeepOpen.isSelected() ? "true" : "false");
+    Settings.keepOpen.set(SettingsGUI.switchKeepOpen.isSelected());
   }
 
   public static void forceRebuildEvent() {
     ModLoader.mountRequired = true;
-    ModLoader.startFileRebuild();
+    ModLoader.startDeepFileRebuild();
   }
 
   public static void createShortcutChangeEvent(ActionEvent event) {
-    Settings.createShortcut = SettingsGUI.switchShortcut.isSelected();
-    SettingsProperties.setValue("launcher.createShortcut", SettingsGUI.switchShortcut.isSelected() ? "true" : "false");
+    Settings.createShortcut.set(SettingsGUI.switchShortcut.isSelected());
   }
 
   public static void languageChangeEvent(ItemEvent event) {
     if(event.getStateChange() == ItemEvent.SELECTED)
       return; // Prevent triggering 2 times
-    Settings.lang = Locale.getLangCode((String) SettingsGUI.choiceLanguage.getSelectedItem());
-    SettingsProperties.setValue("launcher.lang", Locale.getLangCode((String) SettingsGUI.choiceLanguage.getSelectedItem()));
+    Settings.lang.set(Locale.getLangCode((String) SettingsGUI.choiceLanguage.getSelectedItem()));
     DialogWarning.pushTranslated(Locale.getValue("m.prompt_restart_required"));
   }
 
   public static void useStringDeduplicationChangeEvent(ActionEvent action) {
-    Settings.gameUseStringDeduplication = SettingsGUI.switchStringDedup.isSelected();
-    SettingsProperties.setValue("game.useStringDeduplication", SettingsGUI.switchStringDedup.isSelected() ? "true" : "false");
+    Settings.gameUseStringDeduplication.set(SettingsGUI.switchStringDedup.isSelected());
   }
 
   public static void customGCChangeEvent(ActionEvent action) {
-    Settings.gameUseCustomGC = SettingsGUI.switchUseCustomGC.isSelected();
-    SettingsProperties.setValue("game.useCustomGC", SettingsGUI.switchUseCustomGC.isSelected() ? "true" : "false");
+    Settings.gameUseCustomGC.set(SettingsGUI.switchUseCustomGC.isSelected());
   }
 
   public static void choiceGCChangeEvent(ItemEvent event) {
     switch (SettingsGUI.choiceGC.getSelectedIndex()) {
       case 0:
-        Settings.gameGarbageCollector = "ParallelOld";
-        SettingsProperties.setValue("game.garbageCollector", "ParallelOld");
+        Settings.gameGarbageCollector.set("ParallelOld");
         break;
       case 1:
-        Settings.gameGarbageCollector = "Serial";
-        SettingsProperties.setValue("game.garbageCollector", "Serial");
+        Settings.gameGarbageCollector.set("Serial");
         break;
       case 2:
-        Settings.gameGarbageCollector = "G1";
-        SettingsProperties.setValue("game.garbageCollector", "G1");
+        Settings.gameGarbageCollector.set("G1");
         break;
     }
   }
 
   public static void disableExplicitGCChangeEvent(ActionEvent action) {
-    Settings.gameDisableExplicitGC = SettingsGUI.switchExplicitGC.isSelected();
-    SettingsProperties.setValue("game.disableExplicitGC", SettingsGUI.switchExplicitGC.isSelected() ? "true" : "false");
+    Settings.gameDisableExplicitGC.set(SettingsGUI.switchExplicitGC.isSelected());
   }
 
   public static void saveAdditionalArgs() {
-    Settings.gameAdditionalArgs = SettingsGUI.argumentsPane.getText();
-    SettingsProperties.setValue("game.additionalArgs", SettingsGUI.argumentsPane.getText());
+    Settings.gameAdditionalArgs.set(SettingsGUI.argumentsPane.getText());
   }
 
   public static void memoryChangeEvent(ItemEvent event) {
-    Settings.gameMemory = SettingsGUI.parseSelectedMemoryAsInt();
-    SettingsProperties.setValue("game.memory", String.valueOf(SettingsGUI.parseSelectedMemoryAsInt()));
+    Settings.gameMemory.set(SettingsGUI.parseSelectedMemoryAsInt());
     SettingsGUI.choiceMemory.setToolTipText((String) SettingsGUI.choiceMemory.getSelectedItem());
   }
 
   public static void styleChangeEvent(ItemEvent event) {
     if(event.getStateChange() == ItemEvent.SELECTED)
       return; // Prevent triggering 2 times
-    SettingsProperties.setValue("launcher.style", SettingsGUI.choiceStyle.getSelectedIndex() == 0 ? "dark" : "light");
+    Settings.launcherStyle.set(SettingsGUI.choiceStyle.getSelectedIndex() == 0 ? "dark" : "light");
     DialogWarning.pushTranslated(Locale.getValue("m.prompt_restart_required"));
   }
 
   public static void ingameRPCChangeEvent(ActionEvent action) {
-    Settings.useIngameRPC = SettingsGUI.switchUseIngameRPC.isSelected();
-    SettingsProperties.setValue("launcher.useIngameRPC", SettingsGUI.switchUseIngameRPC.isSelected() ? "true" : "false");
+    Settings.useIngameRPC.set(SettingsGUI.switchUseIngameRPC.isSelected());
   }
 
   public static void jvmPatchEvent(ActionEvent action) {
-    SettingsProperties.setValue("launcher.jvm_patched", "false");
+    Settings.jvmPatched.set(false);
     ProcessUtil.run(new String[] { "java", "-jar", LauncherGlobals.USER_DIR + "\\KnightLauncher.jar", "forceJVMPatch"}, true);
     SettingsGUI.settingsGUIFrame.dispose();
     System.exit(1);
   }
 
   public static void saveConnectionSettings() {
-    Settings.gameEndpoint = SettingsGUI.serverAddressTextField.getText();
-    Settings.gamePort = Integer.parseInt(SettingsGUI.portTextField.getText());
-    Settings.gamePublicKey = SettingsGUI.publicKeyTextField.getText();
-    Settings.gameGetdownFullURL = SettingsGUI.getdownURLTextField.getText();
-    Settings.gameGetdownURL = "http://" + SettingsGUI.getdownURLTextField.getText().split("://")[1].split("/")[0];
-    SettingsProperties.setValue("game.endpoint", Settings.gameEndpoint);
-    SettingsProperties.setValue("game.port", String.valueOf(Settings.gamePort));
-    SettingsProperties.setValue("game.publicKey", Settings.gamePublicKey);
-    SettingsProperties.setValue("game.getdownURL", Settings.gameGetdownURL);
-    SettingsProperties.setValue("game.getdownFullURL", Settings.gameGetdownFullURL);
+    Settings.gameEndpoint.set(SettingsGUI.serverAddressTextField.getText());
+    Settings.gamePort.set(Integer.parseInt(SettingsGUI.portTextField.getText()));
+    Settings.gamePublicKey.set(SettingsGUI.publicKeyTextField.getText());
+    Settings.gameGetdownFullURL.set(SettingsGUI.getdownURLTextField.getText());
+    Settings.gameGetdownURL.set("http://" + SettingsGUI.getdownURLTextField.getText().split("://")[1].split("/")[0]);
   }
 
   public static void understoodCheckBoxChangeEvent(ActionEvent action) {
     if(SettingsGUI.understoodCheckBox.isSelected()) {
-      Settings.connectionOverwriteAgreed = true;
-      SettingsProperties.setValue("launcher.connectionOverwriteAgreed", "true");
+      Settings.connectionOverwriteAgreed.set(true);
 
       SettingsGUI.understoodCheckBox.setEnabled(false);
       SettingsGUI.understoodCheckBox.setVisible(false);
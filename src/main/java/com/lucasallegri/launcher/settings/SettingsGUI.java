@@ -178,7 +178,7 @@ public class SettingsGUI extends BaseGUI {
     choiceStyle.addItem(Locale.getValue("o.dark"));
     choiceStyle.addItem(Locale.getValue("o.light"));
     appearancePanel.add(choiceStyle);
-    choiceStyle.setSelectedIndex(Settings.launcherStyle.equals("dark") ? 0 : 1);
+    choiceStyle.setSelectedIndex(Settings.launcherStyle.get().equals("dark") ? 0 : 1);
     choiceStyle.addItemListener(new ItemListener() {
       @Override
       public void itemStateChanged(ItemEvent event) {
@@ -199,7 +199,7 @@ public class SettingsGUI extends BaseGUI {
       choiceLanguage.addItem(lang);
     }
     appearancePanel.add(choiceLanguage);
-    choiceLanguage.setSelectedItem(Locale.getLangName(Settings.lang));
+    choiceLanguage.setSelectedItem(Locale.getLangName(Settings.lang.get()));
     choiceLanguage.addItemListener(new ItemListener() {
       @Override
       public void itemStateChanged(ItemEvent event) {
@@ -234,7 +234,7 @@ public class SettingsGUI extends BaseGUI {
     switchCleaning.setBounds(790, 95, 30, 23);
     switchCleaning.setFocusPainted(false);
     behaviorPanel.add(switchCleaning);
-    switchCleaning.setSelected(Settings.doRebuilds);
+    switchCleaning.setSelected(Settings.doRebuilds.get());
     switchCleaning.addActionListener(new ActionListener() {
       public void actionPerformed(ActionEvent _action) {
         SettingsEventHandler.rebuildsChangeEvent(_action);
@@ -259,7 +259,7 @@ public class SettingsGUI extends BaseGUI {
     switchKeepOpen.setBounds(790, 160, 30, 23);
     switchKeepOpen.setFocusPainted(false);
     behaviorPanel.add(switchKeepOpen);
-    switchKeepOpen.setSelected(Settings.keepOpen);
+    switchKeepOpen.setSelected(Settings.keepOpen.get());
     switchKeepOpen.addActionListener(new ActionListener() {
       public void actionPerformed(ActionEvent _action) {
         SettingsEventHandler.keepOpenChangeEvent(_action);
@@ -284,7 +284,7 @@ public class SettingsGUI extends BaseGUI {
     switchShortcut.setBounds(790, 225, 30, 23);
     switchShortcut.setFocusPainted(false);
     behaviorPanel.add(switchShortcut);
-    switchShortcut.setSelected(Settings.createShortcut);
+    switchShortcut.setSelected(Settings.createShortcut.get());
     switchShortcut.addActionListener(new ActionListener() {
       public void actionPerformed(ActionEvent _action) {
         SettingsEventHandler.createShortcutChangeEvent(_action);
@@ -319,7 +319,7 @@ public class SettingsGUI extends BaseGUI {
     if(SystemUtil.isWindows() && !SteamUtil.isRunningInSteamapps()) {
       choicePlatform.removeItem(Locale.getValue("o.steam"));
     }
-    choicePlatform.setSelectedItem(Settings.gamePlatform);
+    choicePlatform.setSelectedItem(Settings.gamePlatform.get());
     choicePlatform.addItemListener(new ItemListener() {
       @Override
       public void itemStateChanged(ItemEvent event) {
@@ -375,7 +375,7 @@ public class SettingsGUI extends BaseGUI {
     //switchStringDedup.setBounds(790, 180, 30, 23);
     //switchStringDedup.setFocusPainted(false);
     //gamePanel.add(switchStringDedup);
-    //switchStringDedup.setSelected(Settings.gameUseStringDeduplication);
+    //switchStringDedup.setSelected(Settings.gameUseStringDeduplication.get());
     //switchStringDedup.addActionListener(new ActionListener() {
     //  public void actionPerformed(ActionEvent _action) {
     //    SettingsEventHandler.useStringDeduplicationChangeEvent(_action);
@@ -396,7 +396,7 @@ public class SettingsGUI extends BaseGUI {
     switchUseCustomGC.setBounds(790, 180, 30, 23);
     switchUseCustomGC.setFocusPainted(false);
     gamePanel.add(switchUseCustomGC);
-    switchUseCustomGC.setSelected(Settings.gameUseCustomGC);
+    switchUseCustomGC.setSelected(Settings.gameUseCustomGC.get());
     switchUseCustomGC.addActionListener(new ActionListener() {
       public void actionPerformed(ActionEvent _action) {
         SettingsEventHandler.customGCChangeEvent(_action);
@@ -412,7 +412,7 @@ public class SettingsGUI extends BaseGUI {
     choiceGC.addItem("ParallelOld");
     choiceGC.addItem("Serial");
     choiceGC.addItem("G1");
-    choiceGC.setSelectedItem(Settings.gameGarbageCollector);
+    choiceGC.setSelectedItem(Settings.gameGarbageCollector.get());
     choiceGC.addItemListener(new ItemListener() {
       @Override
       public void itemStateChanged(ItemEvent event) {
@@ -439,7 +439,7 @@ public class SettingsGUI extends BaseGUI {
     switchExplicitGC.setBounds(790, 245, 30, 23);
     switchExplicitGC.setFocusPainted(false);
     gamePanel.add(switchExplicitGC);
-    switchExplicitGC.setSelected(Settings.gameDisableExplicitGC);
+    switchExplicitGC.setSelected(Settings.gameDisableExplicitGC.get());
     switchExplicitGC.addActionListener(new ActionListener() {
       public void actionPerformed(ActionEvent _action) {
         SettingsEventHandler.disableExplicitGCChangeEvent(_action);
@@ -538,7 +538,7 @@ public class SettingsGUI extends BaseGUI {
     argumentsPane.setFont(Fonts.fontMed);
     argumentsPane.setBounds(25, 125, 323, 175);
     extraPanel.add(argumentsPane);
-    argumentsPane.setText(Settings.gameAdditionalArgs);
+    argumentsPane.setText(Settings.gameAdditionalArgs.get());
 
     JScrollPane scrollBar = new JScrollPane(argumentsPane);
     scrollBar.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS);
@@ -573,7 +573,7 @@ public class SettingsGUI extends BaseGUI {
     switchUseIngameRPC.setBounds(790, 95, 30, 23);
     switchUseIngameRPC.setFocusPainted(false);
     ingameRPCPanel.add(switchUseIngameRPC);
-    switchUseIngameRPC.setSelected(Settings.useIngameRPC);
+    switchUseIngameRPC.setSelected(Settings.useIngameRPC.get());
     switchUseIngameRPC.addActionListener(new ActionListener() {
       public void actionPerformed(ActionEvent _action) {
         SettingsEventHandler.ingameRPCChangeEvent(_action);
@@ -603,7 +603,7 @@ public class SettingsGUI extends BaseGUI {
     serverAddressTextField.setFont(Fonts.fontMed);
     serverAddressTextField.setBounds(25, 105, 250, 25);
     connectionPanel.add(serverAddressTextField);
-    serverAddressTextField.setText(Settings.gameEndpoint);
+    serverAddressTextField.setText(Settings.gameEndpoint.get());
 
     JLabel portLabel = new JLabel("Port");
     portLabel.setHorizontalAlignment(SwingConstants.LEFT);
@@ -615,7 +615,7 @@ public class SettingsGUI extends BaseGUI {
     portTextField.setFont(Fonts.fontMed);
     portTextField.setBounds(280, 105, 55, 25);
     connectionPanel.add(portTextField);
-    portTextField.setText(String.valueOf(Settings.gamePort));
+    portTextField.setText(String.valueOf(Settings.gamePort.get()));
 
     JLabel publicKeyLabel = new JLabel("Public Key");
     publicKeyLabel.setHorizontalAlignment(SwingConstants.LEFT);
@@ -637,7 +637,7 @@ public class SettingsGUI extends BaseGUI {
     publicKeyPanel.setBounds(25, 160, 355, 25);
 
     connectionPanel.add(publicKeyPanel);
-    publicKeyTextField.setText(Settings.gamePublicKey);
+    publicKeyTextField.setText(Settings.gamePublicKey.get());
 
     JLabel getdownURLLabel = new JLabel("Getdown URL");
     getdownURLLabel.setHorizontalAlignment(SwingConstants.LEFT);
@@ -659,7 +659,7 @@ public class SettingsGUI extends BaseGUI {
     getdownURLPanel.setBounds(25, 215, 355, 25);
 
     connectionPanel.add(getdownURLPanel);
-    getdownURLTextField.setText(Settings.gameGetdownFullURL);
+    getdownURLTextField.setText(Settings.gameGetdownFullURL.get());
 
     JButton resetButton = new JButton("Reset values to default");
     resetButton.setFont(Fonts.fontMed);
@@ -685,7 +685,7 @@ public class SettingsGUI extends BaseGUI {
     understoodCheckBox.addActionListener(action -> SettingsEventHandler.understoodCheckBoxChangeEvent(action));
     connectionPanel.add(understoodCheckBox);
 
-    if(Settings.connectionOverwriteAgreed) {
+    if(Settings.connectionOverwriteAgreed.get()) {
       serverAddressTextField.setEnabled(true);
       portTextField.setEnabled(true);
       publicKeyTextField.setEnabled(true);
@@ -736,7 +736,7 @@ public class SettingsGUI extends BaseGUI {
   }
 
   protected static int parseSelectedMemoryAsIndex() {
-    switch (Settings.gameMemory) {
+    switch (Settings.gameMemory.get()) {
       case 256:
         return 0;
       case 512:
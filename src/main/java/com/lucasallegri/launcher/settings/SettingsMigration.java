@@ -0,0 +1,67 @@
+package com.lucasallegri.launcher.settings;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static com.lucasallegri.launcher.settings.Log.log;
+
+/**
+ * Brings settings written by an older launcher up to the current PROP_VER, all in memory.
+ *
+ * Each step takes the settings from the version right before its own and runs in version order, starting after
+ * the version the settings were written with. New keys don't need a step, they come with their defaults from
+ * base.properties. Only renamed, removed or reinterpreted keys do.
+ */
+class SettingsMigration {
+
+  private static final NavigableMap<Integer, Consumer<Properties>> steps = new TreeMap<>();
+
+  static {
+    // The mod index keeps track of mod counts, and jar mods never had a disabled list of their own.
+    step(21, prop -> {
+      prop.remove("modloader.lastModCount");
+      prop.remove("modloader.lastJarModCount");
+      prop.remove("modloader.disabledJarMods");
+    });
+  }
+
+  private static void step(int version, Consumer<Properties> step) {
+    steps.put(version, step);
+  }
+
+  /**
+   * @param old the settings as read from disk.
+   * @param base the defaults of the current version.
+   * @return the current defaults with every old value carried over through the steps.
+   */
+  static Properties migrate(Properties old, Properties base, int to) {
+    int from = parseVersion(old.getProperty("PROP_VER"));
+    Properties data = new Properties();
+    data.putAll(old);
+    for (Map.Entry<Integer, Consumer<Properties>> step : steps.subMap(from, false, to, true).entrySet()) {
+      step.getValue().accept(data);
+      log.info("Applied settings migration step", "version", step.getKey());
+    }
+
+    Properties migrated = new Properties();
+    migrated.putAll(base);
+    for (String key : data.stringPropertyNames()) {
+      migrated.setProperty(key, data.getProperty(key));
+    }
+    migrated.setProperty("PROP_VER", String.valueOf(to));
+    log.info("Migrated settings", "from", from, "to", to);
+    return migrated;
+  }
+
+  private static int parseVersion(String version) {
+    try {
+      return version == null ? 0 : Integer.parseInt(version.trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+}
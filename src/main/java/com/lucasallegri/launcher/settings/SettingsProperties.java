@@ -7,28 +7,43 @@ import com.lucasallegri.util.SystemUtil;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.lucasallegri.launcher.settings.Log.log;
 
 public class SettingsProperties {
 
-  private static final String PROP_VER = "15";
+  private static final String PROP_VER = "21";
 
-  private static Properties _prop = new Properties();
+  // Changes are written out together once they stop coming in for this long.
+  private static final long FLUSH_DELAY_MILLIS = 500;
+
+  private static final Properties _prop = new Properties();
   private static final String _propPath = LauncherGlobals.USER_DIR + File.separator + "KnightLauncher.properties";
-  private static HashMap<String, Object> migrationMap = new HashMap<>();
-  private static boolean migrationOngoing = false;
+  private static final Object _flushLock = new Object();
+  private static final ScheduledExecutorService _flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "kl-settings-flush");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private static volatile boolean loaded = false;
+  private static boolean dirty = false;
+  private static boolean flushScheduled = false;
+
+  static {
+    // Pending changes would otherwise be lost on System.exit, like when the game gets launched.
+    Runtime.getRuntime().addShutdownHook(new Thread(SettingsProperties::flush, "kl-settings-shutdown"));
+  }
 
   public static void setup() {
     try {
       if (!FileUtil.fileExists(_propPath)) {
         FileUtil.extractFileWithinJar("/config/base.properties", _propPath);
-      } else if (FileUtil.fileExists(_propPath) && getValue("PROP_VER") != null
-              && !getValue("PROP_VER").equals(PROP_VER)) {
+        reload();
+      } else if (getValue("PROP_VER") != null && !getValue("PROP_VER").equals(PROP_VER)) {
         log.warning("Old PROP_VER detected, beginning migration...");
-        migrationMap = getAllKeyValues();
-        FileUtil.deleteFile(_propPath);
-        FileUtil.extractFileWithinJar("/config/base.properties", _propPath);
         migrate();
       }
     } catch (IOException e) {
@@ -39,89 +54,94 @@ public class SettingsProperties {
   }
 
   public static String getValue(String key) {
-    String value;
-    try (InputStream is = new FileInputStream(_propPath)) {
-      _prop.load(is);
-      value = _prop.getProperty(key);
-      log.info("Request for prop key", "key", key, "value", value);
-      return value;
-    } catch (IOException e) {
-      log.error(e);
-    }
-    return null;
+    if (!loaded) reload();
+    return _prop.getProperty(key);
   }
 
   public static void setValue(String key, String value) {
-    try (InputStream is = new FileInputStream(_propPath)) {
-      if(migrationOngoing) _prop.load(is);
+    if (!loaded) reload();
+    synchronized (SettingsProperties.class) {
       _prop.setProperty(key, value);
-      _prop.store(new FileOutputStream(_propPath), null);
-      log.info("Setting new key value", "key", key, "value", value);
-    } catch (IOException e) {
-      log.error(e);
+      dirty = true;
+      if (!flushScheduled) {
+        flushScheduled = true;
+        _flusher.schedule(SettingsProperties::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+      }
     }
+    log.info("Setting new key value", "key", key, "value", value);
   }
 
-  private static HashMap<String, Object> getAllKeyValues() {
-    HashMap<String, Object> keyValues = new HashMap<>();
-    try (InputStream is = new FileInputStream(_propPath)) {
-      _prop.load(is);
-      for(String key : _prop.stringPropertyNames()) {
-        keyValues.put(key, getValue(key));
+  /**
+   * Writes pending changes to the prop file right away instead of waiting for the scheduled write.
+   */
+  public static void flush() {
+    synchronized (_flushLock) {
+      Properties snapshot = new Properties();
+      synchronized (SettingsProperties.class) {
+        flushScheduled = false;
+        if (!dirty) return;
+        dirty = false;
+        snapshot.putAll(_prop);
+      }
+
+      try {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.store(out, null);
+        FileUtil.writeAtomically(new ByteArrayInputStream(out.toByteArray()), new File(_propPath));
+      } catch (IOException e) {
+        log.error("Failed to write prop file", e);
+        synchronized (SettingsProperties.class) {
+          dirty = true;
+        }
       }
-      return keyValues;
+    }
+  }
+
+  /**
+   * Reads the prop file into memory, replacing whatever was there.
+   */
+  static synchronized void reload() {
+    Properties prop = new Properties();
+    try (InputStream is = new BufferedInputStream(new FileInputStream(_propPath))) {
+      prop.load(is);
     } catch (IOException e) {
       log.error(e);
     }
-    return null;
+    _prop.clear();
+    _prop.putAll(prop);
+    dirty = false;
+    loaded = true;
   }
 
   public static void load() {
-    Settings.jvmPatched = Boolean.parseBoolean(getValue("launcher.jvm_patched"));
-    Settings.launcherStyle = getValue("launcher.style");
-    Settings.lang = getValue("launcher.lang");
-    Settings.doRebuilds = Boolean.parseBoolean(getValue("launcher.rebuilds"));
-    Settings.keepOpen = Boolean.parseBoolean(getValue("launcher.keepOpen"));
-    Settings.createShortcut = Boolean.parseBoolean(getValue("launcher.createShortcut"));
-    Settings.ingameRPCSetup = Boolean.parseBoolean(getValue("launcher.ingameRPCSetup"));
-    Settings.useIngameRPC = Boolean.parseBoolean(getValue("launcher.useIngameRPC"));
-    Settings.allowModding = Boolean.parseBoolean(getValue("launcher.allowModding"));
-    Settings.connectionOverwriteAgreed = Boolean.parseBoolean(getValue("launcher.connectionOverwriteAgreed"));
-    Settings.compressorUnzipMethod = getValue("compressor.unzipMethod");
-    Settings.compressorExtractBuffer = Integer.parseInt(getValue("compressor.extractBuffer"));
-    Settings.gamePlatform = getValue("game.platform");
-    Settings.gameUseStringDeduplication = Boolean.parseBoolean(getValue("game.useStringDeduplication"));
-    Settings.gameDisableExplicitGC = Boolean.parseBoolean(getValue("game.disableExplicitGC"));
-    Settings.gameUndecoratedWindow = Boolean.parseBoolean(getValue("game.undecoratedWindow"));
-    Settings.gameUseCustomGC = Boolean.parseBoolean(getValue("game.useCustomGC"));
-    Settings.gameGarbageCollector = getValue("game.garbageCollector");
-    Settings.gameMemory = Integer.parseInt(getValue("game.memory"));
-    Settings.gameEndpoint = getValue("game.endpoint");
-    Settings.gamePort = Integer.parseInt(getValue("game.port"));
-    Settings.gamePublicKey = getValue("game.publicKey");
-    Settings.gameGetdownURL = getValue("game.getdownURL");
-    Settings.gameGetdownFullURL = getValue("game.getdownFullURL");
-    Settings.gameAdditionalArgs = getValue("game.additionalArgs");
+    for (Setting<?> setting : Settings.all()) setting.load();
     log.info("Successfully loaded all settings from prop file.");
     finishLoading();
   }
 
   private static void finishLoading() {
     if(SystemUtil.isWindows() && !SteamUtil.isRunningInSteamapps()) {
-      setValue("game.platform", "Standalone");
+      Settings.gamePlatform.set("Standalone");
     }
   }
 
-  private static void migrate() {
-    migrationOngoing = true;
-    for(String key : migrationMap.keySet()) {
-      if(key.equals("PROP_VER")) continue;
-      setValue(key, (String) migrationMap.get(key));
+  /**
+   * Upgrades what was read from an older prop file in memory, then writes it out once.
+   */
+  private static void migrate() throws IOException {
+    Properties base = new Properties();
+    try (InputStream is = SettingsProperties.class.getResourceAsStream("/config/base.properties")) {
+      if (is == null) throw new FileNotFoundException("/config/base.properties");
+      base.load(is);
     }
 
-    // Successfully migrated to newer PROP_VER.
-    setValue("PROP_VER", PROP_VER);
-    migrationOngoing = false;
+    synchronized (SettingsProperties.class) {
+      Properties migrated = SettingsMigration.migrate(_prop, base, Integer.parseInt(PROP_VER));
+      _prop.clear();
+      _prop.putAll(migrated);
+      dirty = true;
+    }
+    flush();
   }
 
 }
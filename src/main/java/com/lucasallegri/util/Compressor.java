@@ -6,9 +6,11 @@ import net.lingala.zip4j.exception.ZipException;
 import net.lingala.zip4j.model.FileHeader;
 
 import java.io.*;
-import java.security.DigestInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.*;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -21,7 +23,7 @@ public class Compressor {
 
   public static void unzip(String source, String dest, Boolean force4j) {
     try {
-      switch (Settings.compressorUnzipMethod) {
+      switch (Settings.compressorUnzipMethod.get()) {
         case "custom":
           if (force4j) {
             unzip4j(source, dest);
@@ -32,6 +34,9 @@ public class Compressor {
         case "4j":
           unzip4j(source, dest);
           break;
+        case "channel":
+          unzipChannel(source, dest);
+          break;
         default:
           unzip4j(source, dest);
           break;
@@ -48,6 +53,18 @@ public class Compressor {
   }
 
 
+  /**
+   * Parallel extraction straight through file channels, see {@link ZipChannelExtractor}.
+   * Archives it can't handle (ZIP64, encrypted or exotic compression) go through zip4j instead.
+   */
+  public static void unzipChannel(String source, String dest) throws IOException {
+    if (!ZipChannelExtractor.extract(new File(source), new File(dest))) {
+      log.info("Archive not supported by the channel extractor, using zip4j", "source", source);
+      unzip4j(source, dest);
+    }
+  }
+
+
   public static void unzipCustom(String zipFilePath, String destDirectory) throws IOException {
     FileUtil.createDir(destDirectory);
     ZipInputStream zipIn = new ZipInputStream(new FileInputStream(zipFilePath));
@@ -61,8 +78,11 @@ public class Compressor {
         continue;
       }
       if (!entry.isDirectory()) {
-        // if the entry is a file, extracts it
-        extractFileSafe(zipIn, filePath);
+        // if the entry is a file, extracts it, unless it's already there. Entries written with a data
+        // descriptor only know their CRC after being read, those always get extracted.
+        if (!Settings.compressorSkipIdentical.get() || !FileUtil.isIdentical(new File(filePath), entry.getSize(), entry.getCrc())) {
+          extractFileSafe(zipIn, filePath);
+        }
       } else {
         // if the entry is a directory, make the directory
         FileUtil.createDir(filePath);
@@ -76,7 +96,7 @@ public class Compressor {
 
   private static void extractFileSafe(ZipInputStream zipIn, String filePath) throws IOException {
     BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(filePath));
-    byte[] bytesIn = new byte[Settings.compressorExtractBuffer];
+    byte[] bytesIn = new byte[Settings.compressorExtractBuffer.get()];
     int read = 0;
     while ((read = zipIn.read(bytesIn)) != -1) {
       bos.write(bytesIn, 0, read);
@@ -100,39 +120,73 @@ public class Compressor {
   }
 
 
-  @SuppressWarnings("unused")
+  /**
+   * Fingerprint of a zip archive, see {@link #getZipFingerprint(java.util.zip.ZipFile, boolean)}.
+   *
+   * @return the fingerprint, or null if the archive couldn't be read.
+   */
   public static String getZipHash(String source) {
-    InputStream file = null;
-    String hash = null;
-    try {
-      file = new FileInputStream(source);
-    } catch (FileNotFoundException e) {
+    return getZipFingerprint(source, false);
+  }
+
+
+  public static String getZipFingerprint(String source, boolean deep) {
+    try (java.util.zip.ZipFile zip = new java.util.zip.ZipFile(source)) {
+      return getZipFingerprint(zip, deep);
+    } catch (IOException e) {
       log.error(e);
     }
-    ZipInputStream stream = new ZipInputStream(file);
+    return null;
+  }
+
+
+  /**
+   * Builds a composite hash of every entry in the archive. By default only the central directory is read
+   * (names, CRC32s and sizes), so nothing gets decompressed. Deep mode also hashes the content of each
+   * entry, for archives whose CRCs can't be trusted.
+   *
+   * Entries are hashed in name order, so repacking the same files in a different order keeps the fingerprint.
+   */
+  public static String getZipFingerprint(java.util.zip.ZipFile zip, boolean deep) throws IOException {
+    MessageDigest md;
     try {
-      ZipEntry entry;
-      while ((entry = stream.getNextEntry()) != null) {
-        MessageDigest md = MessageDigest.getInstance("MD5");
-        DigestInputStream dis = new DigestInputStream(stream, md);
-        byte[] buffer = new byte[HASH_BUFFER_SIZE];
-        int read = dis.read(buffer);
-        while (read > -1) {
-          read = dis.read(buffer);
+      md = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+
+    List<ZipEntry> entries = new ArrayList<>();
+    Enumeration<? extends ZipEntry> e = zip.entries();
+    while (e.hasMoreElements()) entries.add(e.nextElement());
+    entries.sort(Comparator.comparing(ZipEntry::getName));
+
+    byte[] buffer = deep ? new byte[HASH_BUFFER_SIZE] : null;
+    ByteBuffer fields = ByteBuffer.allocate(16);
+    for (ZipEntry entry : entries) {
+      md.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+      md.update((byte) 0);
+      fields.clear();
+      fields.putLong(entry.getCrc()).putLong(entry.getSize());
+      md.update(fields.array());
+
+      if (deep && !entry.isDirectory()) {
+        try (InputStream in = zip.getInputStream(entry)) {
+          for (int read; (read = in.read(buffer)) != -1; ) {
+            md.update(buffer, 0, read);
+          }
         }
-        hash = new String(dis.getMessageDigest().digest());
-      }
-    } catch (NoSuchAlgorithmException | IOException e) {
-      log.error(e);
-    } finally {
-      try {
-        stream.close();
-      } catch (IOException e) {
-        log.error(e);
       }
     }
-    return hash;
+    return toHex(md.digest());
   }
 
 
+  private static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
 }
@@ -0,0 +1,32 @@
+package com.lucasallegri.util;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers directories that are known to exist, so extracting thousands of entries
+ * doesn't stat (and try to create) the same parent directory over and over.
+ * Safe to share between threads.
+ */
+public class DirectoryCache {
+
+  private final Set<String> known = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Makes sure the given directory exists.
+   *
+   * @return false if the directory didn't exist and couldn't be created.
+   */
+  public boolean ensure(File dir) {
+    if (dir == null) return true;
+    String path = dir.getPath();
+    if (known.contains(path)) return true;
+
+    // mkdirs() may lose a race against another thread creating the same tree, so check again before giving up.
+    if (!dir.mkdirs() && !dir.isDirectory()) return false;
+    known.add(path);
+    return true;
+  }
+
+}
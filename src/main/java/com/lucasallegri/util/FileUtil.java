@@ -12,14 +12,19 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
+import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -28,6 +33,8 @@ import static com.lucasallegri.util.Log.log;
 
 public class FileUtil {
 
+  public static final String TEMP_SUFFIX = ".kltmp";
+
   public static void createDir(String path) {
     new File(path).mkdirs();
   }
@@ -111,6 +118,76 @@ public class FileUtil {
     }
   }
 
+  /**
+   * Writes the stream to a temporary file next to the target and renames it into place,
+   * so the target is never left half-written.
+   */
+  public static void writeAtomically(InputStream in, File file) throws IOException {
+    File temp = new File(file.getPath() + TEMP_SUFFIX);
+    try {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+        StreamUtil.copy(in, out);
+      }
+      try {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      temp.delete();
+      throw e;
+    }
+  }
+
+  /**
+   * Copies a file with {@link FileChannel#transferTo}, which lets the kernel move the bytes without them passing
+   * through the JVM, then renames the copy into place like {@link #writeAtomically}.
+   */
+  public static void copyAtomically(File source, File file) throws IOException {
+    File temp = new File(file.getPath() + TEMP_SUFFIX);
+    try {
+      try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+           FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+               StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        long size = in.size(), done = 0;
+        while (done < size) done += in.transferTo(done, size - done, out);
+      }
+      try {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      temp.delete();
+      throw e;
+    }
+  }
+
+  /**
+   * Whether the file on disk already holds exactly the given content. Sizes are compared first,
+   * the file is only read to compute its CRC32 when they match.
+   *
+   * @param crc the CRC32 of the wanted content, negative if unknown in which case this is always false.
+   */
+  public static boolean isIdentical(File file, long size, long crc) {
+    if (size < 0 || crc < 0 || file.length() != size || !file.isFile()) return false;
+    try {
+      return crc32(file) == crc;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  public static long crc32(File file) throws IOException {
+    CRC32 crc = new CRC32();
+    byte[] buffer = new byte[8192];
+    try (InputStream in = new FileInputStream(file)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) crc.update(buffer, 0, read);
+    }
+    return crc.getValue();
+  }
+
   /*
    * Method to convert InputStream to String
    */
@@ -0,0 +1,293 @@
+package com.lucasallegri.util;
+
+import com.lucasallegri.launcher.settings.Settings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.lucasallegri.util.Log.log;
+
+/**
+ * Zip extractor built directly on {@link FileChannel}, used by the "channel" unzip method.
+ *
+ * The central directory is parsed straight from the end of the file, then entries are extracted in parallel
+ * with positional reads on a single shared channel. Inflaters and buffers are pooled between entries and calls,
+ * output files are preallocated to their final size and written through their own channel.
+ *
+ * Only plain zip archives are handled. ZIP64, encrypted entries and compression methods other than
+ * stored and deflated make {@link #extract} return false without touching anything, so callers can fall back.
+ */
+public class ZipChannelExtractor {
+
+  private static final int EOCD_SIGNATURE = 0x06054b50;
+  private static final int CEN_SIGNATURE = 0x02014b50;
+  private static final int LOC_SIGNATURE = 0x04034b50;
+  private static final int EOCD_SIZE = 22;
+  private static final int CEN_SIZE = 46;
+  private static final int LOC_SIZE = 30;
+  private static final int MAX_COMMENT = 0xFFFF;
+
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int WORKERS = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+
+  private static final Queue<Workspace> workspaces = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Extracts every entry of the given archive into the destination directory.
+   *
+   * @return false if the archive uses features this extractor doesn't support, in which case nothing was written.
+   */
+  public static boolean extract(File source, File dest) throws IOException {
+    try (FileChannel zip = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+      List<Entry> entries = readCentralDirectory(zip);
+      if (entries == null) return false;
+
+      String root = dest.getCanonicalPath() + File.separator;
+      DirectoryCache dirs = new DirectoryCache();
+      dirs.ensure(dest);
+      List<Entry> files = new ArrayList<>();
+      for (Entry entry : entries) {
+        File file = new File(dest, entry.name);
+        if (!file.getCanonicalPath().startsWith(root) && !file.getCanonicalFile().equals(dest.getCanonicalFile())) {
+          log.warning("Skipping zip entry outside of the destination", "zip", source, "entry", entry.name);
+          continue;
+        }
+        if (entry.directory) {
+          dirs.ensure(file);
+        } else {
+          entry.file = file;
+          files.add(entry);
+        }
+      }
+
+      AtomicReference<IOException> failure = new AtomicReference<>();
+      ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(WORKERS, files.size())));
+      for (Entry entry : files) {
+        pool.execute(() -> {
+          try {
+            if (!dirs.ensure(entry.file.getParentFile())) throw new IOException("Could not create " + entry.file.getParentFile());
+            if (Settings.compressorSkipIdentical.get() && FileUtil.isIdentical(entry.file, entry.size, entry.crc)) return;
+            extractEntry(zip, entry);
+          } catch (IOException e) {
+            log.error("Failed to extract zip entry", "zip", source, "entry", entry.name, e);
+            failure.compareAndSet(null, e);
+          }
+        });
+      }
+
+      pool.shutdown();
+      try {
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        pool.shutdownNow();
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while extracting " + source, e);
+      }
+      if (failure.get() != null) throw failure.get();
+      return true;
+    }
+  }
+
+  /**
+   * @return the entries, or null if the archive needs something this extractor doesn't support.
+   */
+  private static List<Entry> readCentralDirectory(FileChannel zip) throws IOException {
+    long length = zip.size();
+    if (length < EOCD_SIZE) throw new IOException("Not a zip file");
+
+    // The end record sits right before an optional trailing comment, scan backwards for it.
+    int tailSize = (int) Math.min(length, EOCD_SIZE + MAX_COMMENT);
+    ByteBuffer tail = read(zip, length - tailSize, tailSize);
+    int eocd = -1;
+    for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+      if (tail.getInt(i) == EOCD_SIGNATURE && i + EOCD_SIZE + (tail.getShort(i + 20) & 0xFFFF) == tailSize) {
+        eocd = i;
+        break;
+      }
+    }
+    if (eocd < 0) throw new IOException("Zip end of central directory not found");
+
+    int count = tail.getShort(eocd + 10) & 0xFFFF;
+    long cenSize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+    long cenOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+    if (count == 0xFFFF || cenSize == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL) return null; // ZIP64
+    if (cenOffset + cenSize > length || cenSize > Integer.MAX_VALUE) throw new IOException("Corrupt zip central directory");
+
+    ByteBuffer cen = read(zip, cenOffset, (int) cenSize);
+    List<Entry> entries = new ArrayList<>(count);
+    int pos = 0;
+    for (int i = 0; i < count; i++) {
+      if (pos + CEN_SIZE > cenSize || cen.getInt(pos) != CEN_SIGNATURE) throw new IOException("Corrupt zip central directory");
+      int flags = cen.getShort(pos + 8) & 0xFFFF;
+      int method = cen.getShort(pos + 10) & 0xFFFF;
+      long crc = cen.getInt(pos + 16) & 0xFFFFFFFFL;
+      long compressedSize = cen.getInt(pos + 20) & 0xFFFFFFFFL;
+      long size = cen.getInt(pos + 24) & 0xFFFFFFFFL;
+      int nameLength = cen.getShort(pos + 28) & 0xFFFF;
+      int extraLength = cen.getShort(pos + 30) & 0xFFFF;
+      int commentLength = cen.getShort(pos + 32) & 0xFFFF;
+      long localOffset = cen.getInt(pos + 42) & 0xFFFFFFFFL;
+
+      if ((flags & 1) != 0 || (method != STORED && method != DEFLATED)) return null;
+      if (compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localOffset == 0xFFFFFFFFL) return null;
+
+      byte[] name = new byte[nameLength];
+      cen.position(pos + CEN_SIZE);
+      cen.get(name);
+      entries.add(new Entry(new String(name, StandardCharsets.UTF_8), method, crc, compressedSize, size, localOffset));
+      pos += CEN_SIZE + nameLength + extraLength + commentLength;
+    }
+    return entries;
+  }
+
+  private static void extractEntry(FileChannel zip, Entry entry) throws IOException {
+    // The local header can carry a different extra field than the central one, so it has to be read for the data offset.
+    ByteBuffer loc = read(zip, entry.localOffset, LOC_SIZE);
+    if (loc.getInt(0) != LOC_SIGNATURE) throw new IOException("Corrupt zip local header");
+    long dataOffset = entry.localOffset + LOC_SIZE + (loc.getShort(26) & 0xFFFF) + (loc.getShort(28) & 0xFFFF);
+
+    // Start from a fresh file rather than writing through whatever is there, it may be linked elsewhere.
+    Files.deleteIfExists(entry.file.toPath());
+    Workspace ws = borrow();
+    try (RandomAccessFile raf = new RandomAccessFile(entry.file, "rw");
+         FileChannel out = raf.getChannel()) {
+      // Sizing the file up front lets the filesystem allocate it in one go.
+      raf.setLength(entry.size);
+      ws.crc.reset();
+
+      if (entry.method == STORED) {
+        copy(zip, dataOffset, entry.size, out, ws);
+      } else {
+        inflate(zip, dataOffset, entry, out, ws);
+      }
+      if (ws.crc.getValue() != entry.crc) throw new IOException("CRC mismatch");
+    } finally {
+      release(ws);
+    }
+  }
+
+  private static void copy(FileChannel zip, long offset, long size, FileChannel out, Workspace ws) throws IOException {
+    long done = 0;
+    while (done < size) {
+      ws.in.clear();
+      ws.in.limit((int) Math.min(BUFFER_SIZE, size - done));
+      int read = zip.read(ws.in, offset + done);
+      if (read < 0) throw new IOException("Unexpected end of zip");
+      ws.crc.update(ws.inBytes, 0, read);
+      ws.in.flip();
+      while (ws.in.hasRemaining()) out.write(ws.in);
+      done += read;
+    }
+  }
+
+  private static void inflate(FileChannel zip, long offset, Entry entry, FileChannel out, Workspace ws) throws IOException {
+    Inflater inflater = ws.inflater;
+    inflater.reset();
+    long readBytes = 0, written = 0;
+    boolean padded = false;
+    try {
+      while (!inflater.finished()) {
+        if (inflater.needsInput()) {
+          if (readBytes >= entry.compressedSize) {
+            // Raw inflaters may want one byte past the end of the stream to notice it's done.
+            if (padded) throw new IOException("Truncated deflate stream");
+            inflater.setInput(new byte[1], 0, 1);
+            padded = true;
+            continue;
+          }
+          ws.in.clear();
+          ws.in.limit((int) Math.min(BUFFER_SIZE, entry.compressedSize - readBytes));
+          int read = zip.read(ws.in, offset + readBytes);
+          if (read < 0) throw new IOException("Unexpected end of zip");
+          inflater.setInput(ws.inBytes, 0, read);
+          readBytes += read;
+        }
+        int n = inflater.inflate(ws.outBytes);
+        if (n == 0) {
+          if (inflater.needsDictionary()) throw new IOException("Unsupported deflate stream");
+          continue;
+        }
+        ws.crc.update(ws.outBytes, 0, n);
+        ws.out.clear();
+        ws.out.limit(n);
+        while (ws.out.hasRemaining()) out.write(ws.out);
+        written += n;
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt deflate stream", e);
+    }
+    if (written != entry.size) throw new IOException("Size mismatch");
+  }
+
+  private static ByteBuffer read(FileChannel zip, long position, int size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (zip.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of zip");
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static Workspace borrow() {
+    Workspace ws = workspaces.poll();
+    return ws != null ? ws : new Workspace();
+  }
+
+  private static void release(Workspace ws) {
+    // Keep at most one per worker around, anything beyond that is left for the collector.
+    if (workspaces.size() < WORKERS) workspaces.offer(ws);
+    else ws.inflater.end();
+  }
+
+  /**
+   * Everything one worker needs to extract an entry, reused across entries and calls.
+   */
+  private static class Workspace {
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] inBytes = new byte[BUFFER_SIZE];
+    private final byte[] outBytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer in = ByteBuffer.wrap(this.inBytes);
+    private final ByteBuffer out = ByteBuffer.wrap(this.outBytes);
+  }
+
+  private static class Entry {
+    private final String name;
+    private final int method;
+    private final long crc;
+    private final long compressedSize;
+    private final long size;
+    private final long localOffset;
+    private final boolean directory;
+    private File file;
+
+    private Entry(String name, int method, long crc, long compressedSize, long size, long localOffset) {
+      this.name = name;
+      this.method = method;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localOffset = localOffset;
+      this.directory = name.endsWith("/");
+    }
+  }
+
+}
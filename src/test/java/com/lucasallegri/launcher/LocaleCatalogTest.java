@@ -0,0 +1,74 @@
+package com.lucasallegri.launcher;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LocaleCatalogTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void compiledLanguagesLoadBack() throws Exception {
+    File dir = folder.newFolder("lang");
+    write(new File(dir, "lang_en.properties"), "b.greet=\"Hello {0}\"\na.title=Title\n");
+    write(new File(dir, "lang_de.properties"), "a.title=Titel\n");
+    File catalog = new File(folder.getRoot(), "catalog.bin");
+    LocaleCatalog.main(new String[] { dir.getPath(), catalog.getPath() });
+
+    LocaleCatalog en = load(catalog, "en");
+    assertArrayEquals(new String[] { "a.title", "b.greet" }, en.keys);
+    assertArrayEquals(new String[] { "Title", "Hello {0}" }, en.values);
+
+    // Untranslated keys fall back to English, under the same ids.
+    LocaleCatalog de = load(catalog, "de");
+    assertArrayEquals(en.keys, de.keys);
+    assertArrayEquals(new String[] { "Titel", "Hello {0}" }, de.values);
+
+    assertNull(load(catalog, "fr"));
+  }
+
+  @Test
+  public void strictFailsOnMissingKeys() throws Exception {
+    File dir = folder.newFolder("lang");
+    write(new File(dir, "lang_en.properties"), "a.title=Title\nb.greet=Hello\n");
+    write(new File(dir, "lang_de.properties"), "a.title=Titel\n");
+    File catalog = new File(folder.getRoot(), "catalog.bin");
+
+    LocaleCatalog.main(new String[] { dir.getPath(), catalog.getPath(), "--report" });
+    try {
+      LocaleCatalog.main(new String[] { dir.getPath(), catalog.getPath(), "--strict" });
+      fail("strict passed with b.greet missing from lang_de");
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test
+  public void shippedCatalogIsCurrent() throws Exception {
+    File dir = new File(System.getProperty("basedir", "."), "assets/lang");
+    File compiled = new File(folder.getRoot(), "catalog.bin");
+    LocaleCatalog.main(new String[] { dir.getPath(), compiled.getPath() });
+
+    assertTrue("Stale assets/lang/catalog.bin, run LocaleCatalog assets/lang assets/lang/catalog.bin", Arrays.equals(
+        Files.readAllBytes(compiled.toPath()), Files.readAllBytes(new File(dir, "catalog.bin").toPath())));
+  }
+
+  private static LocaleCatalog load(File catalog, String lang) throws Exception {
+    try (InputStream is = new FileInputStream(catalog)) {
+      return LocaleCatalog.load(is, lang);
+    }
+  }
+
+  private static void write(File file, String content) throws Exception {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.ISO_8859_1));
+  }
+}
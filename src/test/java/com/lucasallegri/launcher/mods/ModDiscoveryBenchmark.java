@@ -0,0 +1,63 @@
+package com.lucasallegri.launcher.mods;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Measures cold mod discovery (inspecting every archive) for growing mod counts and worker counts.
+ * Run manually: {@code java com.lucasallegri.launcher.mods.ModDiscoveryBenchmark [entriesPerMod]}
+ */
+public class ModDiscoveryBenchmark {
+
+  private static final int[] MOD_COUNTS = { 10, 40, 160 };
+  private static final int[] WORKERS = { 1, 2, 4, 8 };
+  private static final int ROUNDS = 3;
+
+  public static void main(String[] args) throws Exception {
+    int entriesPerMod = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    File dir = Files.createTempDirectory("benchmark-mods").toFile();
+    System.out.println("Cores: " + Runtime.getRuntime().availableProcessors() + ", entries per mod: " + entriesPerMod);
+
+    List<File> mods = new ArrayList<>();
+    Random random = new Random(0);
+    for (int modCount : MOD_COUNTS) {
+      while (mods.size() < modCount) mods.add(createMod(dir, mods.size(), entriesPerMod, random));
+
+      for (int workers : WORKERS) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+          ModInspector.clear();
+          long start = System.nanoTime();
+          ModInspector.inspectAll(mods, workers);
+          best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("mods=" + modCount + " workers=" + workers + " best=" + best / 1_000_000 + "ms");
+      }
+    }
+
+    for (File mod : mods) mod.delete();
+    dir.delete();
+  }
+
+  private static File createMod(File dir, int index, int entries, Random random) throws IOException {
+    File file = new File(dir, "mod" + index + ".zip");
+    byte[] data = new byte[512];
+    try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.putNextEntry(new ZipEntry("mod.json"));
+      out.write(("{\"mod\":{\"name\":\"Mod " + index + "\",\"description\":\"\",\"author\":\"\",\"version\":\"1\"}}")
+          .getBytes(StandardCharsets.UTF_8));
+      for (int i = 0; i < entries; i++) {
+        random.nextBytes(data);
+        out.putNextEntry(new ZipEntry("rsrc/mod" + index + "/" + (i % 16) + "/entry" + i + ".dat"));
+        out.write(data);
+      }
+    }
+    return file;
+  }
+}
@@ -0,0 +1,187 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.mods.data.ZipMod;
+import com.lucasallegri.launcher.settings.Settings;
+import org.junit.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+public class ModMounterTest {
+
+  private MountFixture fx;
+  private String mountMode;
+  private int storeBudget;
+
+  @Before
+  public void setUp() throws Exception {
+    this.fx = new MountFixture();
+    this.fx.bundle("a/x.txt", "orig-x", "a/y.txt", "orig-y");
+    this.mountMode = Settings.modloaderMountMode.get();
+    this.storeBudget = Settings.modloaderStoreBudget.get();
+  }
+
+  @After
+  public void tearDown() {
+    Settings.modloaderMountMode.set(this.mountMode);
+    Settings.modloaderStoreBudget.set(this.storeBudget);
+  }
+
+  @Test
+  public void planOnlyWritesFinalOwners() throws Exception {
+    List<ZipMod> mods = Arrays.asList(
+        this.fx.mod("m1.zip", "a/x.txt", "m1-x"),
+        this.fx.mod("m2.zip", "a/x.txt", "m2-x", "a/z.txt", "m2-z"));
+
+    MountPlan plan = ModMounter.plan(mods, this.fx.rsrc);
+    assertEquals(2, plan.getWriteCount());
+    assertEquals(0, plan.getRestoreCount());
+    // Planning alone leaves rsrc as it is.
+    assertEquals("orig-x", this.fx.read("a/x.txt"));
+    assertNull(this.fx.read("a/z.txt"));
+
+    assertTrue(ModMounter.mount(plan));
+    assertEquals("m2-x", this.fx.read("a/x.txt"));
+    assertEquals("orig-y", this.fx.read("a/y.txt"));
+    assertEquals("m2-z", this.fx.read("a/z.txt"));
+    assertFalse(this.fx.journal.exists());
+
+    // Nothing changed since, so there's nothing left to do.
+    assertTrue(ModMounter.plan(mods, this.fx.rsrc).isEmpty());
+  }
+
+  @Test
+  public void staleEntriesGoBackToTheirOriginal() throws Exception {
+    ModMounter.mount(Collections.singletonList(this.fx.mod("m1.zip", "a/x.txt", "m1-x", "a/z.txt", "m1-z")), this.fx.rsrc);
+    assertEquals("m1-x", this.fx.read("a/x.txt"));
+
+    MountPlan plan = ModMounter.plan(Collections.emptyList(), this.fx.rsrc);
+    assertEquals(1, plan.getRestoreCount());
+    assertEquals(1, plan.getDeleteCount());
+    assertTrue(ModMounter.mount(plan));
+
+    assertEquals("orig-x", this.fx.read("a/x.txt"));
+    // No bundle ships it, so it goes away.
+    assertNull(this.fx.read("a/z.txt"));
+    assertEquals(0, MountManifest.load(this.fx.stamp()).size());
+  }
+
+  @Test
+  public void failedRestoresStayDirty() throws Exception {
+    ModMounter.mount(Collections.singletonList(this.fx.mod("m1.zip", "a/x.txt", "m1-x")), this.fx.rsrc);
+    // Something took the path over, nothing can be moved onto it.
+    new File(this.fx.rsrc, "a/x.txt").delete();
+    this.fx.write("a/x.txt/in-the-way.txt", "");
+
+    assertTrue(ModMounter.mount(Collections.emptyList(), this.fx.rsrc));
+    assertEquals(-1, MountManifest.load(this.fx.stamp()).get(ModMounter.pathKey("a/x.txt")).getCrc());
+
+    List<MountManifest.Entry> dirty = new ArrayList<>();
+    MountManifest manifest = MountManifest.load(this.fx.stamp());
+    for (String key : manifest.keys()) dirty.add(manifest.get(key));
+    assertEquals(dirty, ModMounter.restore(dirty, this.fx.rsrc));
+
+    // Once out of the way, the next mount puts the original back.
+    new File(this.fx.rsrc, "a/x.txt/in-the-way.txt").delete();
+    new File(this.fx.rsrc, "a/x.txt").delete();
+    assertTrue(ModMounter.mount(Collections.emptyList(), this.fx.rsrc));
+    assertEquals("orig-x", this.fx.read("a/x.txt"));
+    assertEquals(0, MountManifest.load(this.fx.stamp()).size());
+  }
+
+  @Test
+  public void failedWritesStayDirty() throws Exception {
+    List<ZipMod> mods = Collections.singletonList(this.fx.mod("m1.zip", "a/x.txt", "m1-x"));
+    MountPlan plan = ModMounter.plan(mods, this.fx.rsrc);
+    // The archive loses its entry between planning and mounting.
+    this.fx.mod("m1.zip", "a/other.txt", "m1-other");
+
+    assertTrue(ModMounter.mount(plan));
+    MountManifest.Entry entry = MountManifest.load(this.fx.stamp()).get(ModMounter.pathKey("a/x.txt"));
+    assertEquals(-1, entry.getCrc());
+    assertEquals(-1, entry.getSize());
+
+    // The next mount tries again.
+    this.fx.mod("m1.zip", "a/x.txt", "m1-x");
+    ModInspector.clear();
+    assertTrue(ModMounter.mount(mods, this.fx.rsrc));
+    assertEquals("m1-x", this.fx.read("a/x.txt"));
+  }
+
+  @Test
+  public void interruptedMountIsLeftToRecovery() throws Exception {
+    List<String> entries = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      entries.add("b/" + i + ".txt");
+      entries.add("mod-" + i);
+    }
+    List<ZipMod> mods = Collections.singletonList(this.fx.mod("m1.zip", entries.toArray(new String[0])));
+    MountPlan plan = ModMounter.plan(mods, this.fx.rsrc);
+
+    Thread.currentThread().interrupt();
+    boolean finished = ModMounter.mount(plan);
+    assertTrue(Thread.interrupted());
+    assertFalse(finished);
+    assertTrue(this.fx.journal.exists());
+    assertNull(MountManifest.load(this.fx.stamp()));
+
+    assertEquals(MountJournal.Kind.MOUNT, MountJournal.recover(this.fx.rsrc));
+    assertTrue(ModMounter.mount(mods, this.fx.rsrc));
+    for (int i = 0; i < 200; i++) assertEquals("mod-" + i, this.fx.read("b/" + i + ".txt"));
+    assertFalse(this.fx.journal.exists());
+  }
+
+  @Test
+  public void storeKeepsTheMostRecentlyUsedWithinItsBudget() throws Exception {
+    // Mounted before the store had a budget, so it's not in there and must not count against it.
+    String old = content('o', 600 * 1024);
+    ZipMod oldMod = this.fx.mod("old.zip", "b/old.bin", old);
+    ModMounter.mount(Collections.singletonList(oldMod), this.fx.rsrc);
+
+    Settings.modloaderStoreBudget.set(1);
+    String a = content('a', 400 * 1024), b = content('b', 400 * 1024), c = content('c', 400 * 1024);
+    ModMounter.mount(Arrays.asList(oldMod, this.fx.mod("a.zip", "b/a.bin", a)), this.fx.rsrc);
+    Thread.sleep(10);
+    ModMounter.mount(Arrays.asList(oldMod, this.fx.mod("b.zip", "b/b.bin", b)), this.fx.rsrc);
+    assertFalse(stored(old));
+    assertTrue(stored(a));
+    assertTrue(stored(b));
+
+    // Over budget now, the one used longest ago goes.
+    Thread.sleep(10);
+    ModMounter.mount(Arrays.asList(oldMod, this.fx.mod("b.zip", "b/b.bin", b), this.fx.mod("c.zip", "b/c.bin", c)), this.fx.rsrc);
+    assertFalse(stored(a));
+    assertTrue(stored(b));
+    assertTrue(stored(c));
+    assertEquals(c, this.fx.read("b/c.bin"));
+  }
+
+  @Test
+  public void linksWithoutStoreBudgetAreCopies() throws Exception {
+    Settings.modloaderMountMode.set("link");
+    Settings.modloaderStoreBudget.set(0);
+    ModMounter.mount(Collections.singletonList(this.fx.mod("m1.zip", "a/x.txt", "m1-x")), this.fx.rsrc);
+
+    assertEquals("m1-x", this.fx.read("a/x.txt"));
+    assertFalse(new File(this.fx.root, "KnightLauncher/store").exists());
+  }
+
+  private static String content(char c, int size) {
+    char[] chars = new char[size];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+
+  private static boolean stored(String content) {
+    CRC32 crc = new CRC32();
+    crc.update(content.getBytes(StandardCharsets.UTF_8));
+    return ContentStore.contains(crc.getValue(), content.length());
+  }
+}
@@ -0,0 +1,89 @@
+package com.lucasallegri.launcher.mods;
+
+import com.lucasallegri.launcher.LauncherGUI;
+import com.lucasallegri.launcher.LauncherGlobals;
+import com.lucasallegri.launcher.mods.data.ZipMod;
+
+import javax.swing.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fresh rsrc, mods and KnightLauncher directories under user.dir, where the mod loader expects them.
+ * The test run must use a scratch working directory, see the surefire configuration in the pom.
+ */
+class MountFixture {
+
+  private static int bundles = 0;
+
+  final File root = new File(LauncherGlobals.USER_DIR);
+  final File rsrc = new File(this.root, "rsrc");
+  final File journal = new File(this.root, "KnightLauncher/mount.journal");
+
+  MountFixture() throws IOException {
+    assertFalse("Tests must not run in the project directory", new File(this.root, "pom.xml").exists());
+    for (String dir : new String[] { "rsrc", "mods", "KnightLauncher" }) delete(new File(this.root, dir));
+    ModInspector.clear();
+
+    // The mount reports progress, give it something to report to.
+    LauncherGUI.launchProgressBar = new JProgressBar();
+    LauncherGUI.launchState = new JLabel();
+  }
+
+  /**
+   * Writes a rest bundle holding the given path and content pairs, and unpacks it into rsrc.
+   * Every bundle gets its own stamp, so nothing loaded for an earlier one is trusted.
+   */
+  void bundle(String... entries) throws IOException {
+    File bundle = new File(this.rsrc, "full-rest-bundle.jar");
+    zip(bundle, entries);
+    bundle.setLastModified(946684800000L + ++bundles * 1000L);
+    for (int i = 0; i < entries.length; i += 2) write(entries[i], entries[i + 1]);
+  }
+
+  ZipMod mod(String name, String... entries) throws IOException {
+    zip(new File(this.root, "mods/" + name), entries);
+    return new ZipMod(name);
+  }
+
+  long stamp() {
+    return ResourceBundles.stamp(this.rsrc);
+  }
+
+  void write(String path, String content) throws IOException {
+    File file = new File(this.rsrc, path);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return the content of the rsrc file, or null if there is none.
+   */
+  String read(String path) throws IOException {
+    File file = new File(this.rsrc, path);
+    return file.exists() ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : null;
+  }
+
+  private static void zip(File file, String... entries) throws IOException {
+    file.getParentFile().mkdirs();
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+      for (int i = 0; i < entries.length; i += 2) {
+        out.putNextEntry(new ZipEntry(entries[i]));
+        out.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) delete(child);
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,69 @@
+package com.lucasallegri.launcher.mods;
+
+import org.junit.*;
+
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class MountJournalTest {
+
+  private MountFixture fx;
+
+  @Before
+  public void setUp() throws Exception {
+    this.fx = new MountFixture();
+    this.fx.bundle("a/x.txt", "orig-x", "a/y.txt", "orig-y");
+  }
+
+  @Test
+  public void nothingToRecover() {
+    assertNull(MountJournal.recover(this.fx.rsrc));
+  }
+
+  @Test
+  public void unfinishedPathsRollBackAndFinishedOnesStayDirty() throws Exception {
+    ModMounter.mount(Collections.singletonList(this.fx.mod("m1.zip", "a/y.txt", "m1-y")), this.fx.rsrc);
+
+    // A mount dies after writing a/z.txt, halfway through a/x.txt.
+    MountJournal journal = MountJournal.begin(MountJournal.Kind.MOUNT, Arrays.asList("a/x.txt", "a/z.txt"));
+    this.fx.write("a/x.txt.kltmp", "half");
+    this.fx.write("a/z.txt", "m2-z");
+    journal.done(1);
+    journal.close();
+
+    assertEquals(MountJournal.Kind.MOUNT, MountJournal.recover(this.fx.rsrc));
+    assertEquals("orig-x", this.fx.read("a/x.txt"));
+    assertNull(this.fx.read("a/x.txt.kltmp"));
+    assertEquals("m2-z", this.fx.read("a/z.txt"));
+    assertFalse(this.fx.journal.exists());
+
+    MountManifest manifest = MountManifest.load(this.fx.stamp());
+    assertNull(manifest.get(ModMounter.pathKey("a/x.txt")));
+    assertEquals(-1, manifest.get(ModMounter.pathKey("a/z.txt")).getCrc());
+    // Untouched by the failed mount.
+    assertEquals("m1.zip", manifest.get(ModMounter.pathKey("a/y.txt")).getMod());
+  }
+
+  @Test
+  public void unfinishedNewPathsAreDeleted() throws Exception {
+    MountJournal journal = MountJournal.begin(MountJournal.Kind.MOUNT, Collections.singletonList("a/new.txt"));
+    this.fx.write("a/new.txt", "partial");
+    journal.close();
+
+    assertEquals(MountJournal.Kind.MOUNT, MountJournal.recover(this.fx.rsrc));
+    assertNull(this.fx.read("a/new.txt"));
+  }
+
+  @Test
+  public void unreadableJournalFallsBackToDeepRebuild() throws Exception {
+    ModMounter.mount(Collections.singletonList(this.fx.mod("m1.zip", "a/y.txt", "m1-y")), this.fx.rsrc);
+    Files.write(this.fx.journal.toPath(), new byte[] { 1, 2, 3 });
+
+    assertEquals(MountJournal.Kind.DEEP, MountJournal.recover(this.fx.rsrc));
+    assertFalse(MountManifest.isCurrent(this.fx.stamp()));
+    assertFalse(this.fx.journal.exists());
+  }
+}
@@ -0,0 +1,39 @@
+package com.lucasallegri.launcher.mods;
+
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResourceBundlesTest {
+
+  private MountFixture fx;
+
+  @Before
+  public void setUp() throws Exception {
+    this.fx = new MountFixture();
+    List<String> entries = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      entries.add("c/" + i + ".txt");
+      entries.add("orig-" + i);
+    }
+    this.fx.bundle(entries.toArray(new String[0]));
+  }
+
+  @Test
+  public void unpackAllPutsEveryFileBack() throws Exception {
+    this.fx.write("c/7.txt", "modded");
+    assertTrue(ResourceBundles.unpackAll(this.fx.rsrc));
+    assertEquals("orig-7", this.fx.read("c/7.txt"));
+  }
+
+  @Test
+  public void interruptedUnpackIsReported() {
+    Thread.currentThread().interrupt();
+    boolean finished = ResourceBundles.unpackAll(this.fx.rsrc);
+    assertTrue(Thread.interrupted());
+    assertFalse(finished);
+  }
+}
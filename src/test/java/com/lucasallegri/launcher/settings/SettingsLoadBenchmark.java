@@ -0,0 +1,73 @@
+package com.lucasallegri.launcher.settings;
+
+import com.lucasallegri.launcher.LauncherGlobals;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Compares loading every setting at startup by reparsing the prop file per key, like SettingsProperties used to,
+ * against the in-memory store.
+ * Run manually from a scratch directory, SettingsProperties keeps its prop file in user.dir:
+ * {@code java com.lucasallegri.launcher.settings.SettingsLoadBenchmark <assets/config dir> [rounds]}
+ */
+public class SettingsLoadBenchmark {
+
+  private static final int WARMUP = 50;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("Usage: SettingsLoadBenchmark <assets/config dir> [rounds]");
+      System.exit(2);
+    }
+    File baseFile = new File(args[0], "base.properties").getAbsoluteFile();
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+    // The same absolute path SettingsProperties reads from, never someone's real settings.
+    File file = new File(LauncherGlobals.USER_DIR, "KnightLauncher.properties").getAbsoluteFile();
+    if (file.exists()) throw new IOException("Run from a scratch directory, " + file + " already exists");
+    Files.copy(baseFile.toPath(), file.toPath());
+
+    Properties base = new Properties();
+    try (InputStream in = new FileInputStream(file)) {
+      base.load(in);
+    }
+    List<String> keys = new ArrayList<>(base.stringPropertyNames());
+
+    for (int i = 0; i < WARMUP; i++) {
+      reparsePerKey(file, keys);
+      SettingsProperties.reload();
+      SettingsProperties.load();
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) reparsePerKey(file, keys);
+    long before = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) {
+      SettingsProperties.reload();
+      SettingsProperties.load();
+    }
+    long after = System.nanoTime() - start;
+
+    System.out.println("keys=" + keys.size() + " rounds=" + rounds);
+    System.out.println("reparse per key: " + before / rounds / 1000 + "us per load");
+    System.out.println("in-memory:       " + after / rounds / 1000 + "us per load");
+
+    file.delete();
+  }
+
+  private static void reparsePerKey(File file, List<String> keys) throws IOException {
+    Properties prop = new Properties();
+    for (String key : keys) {
+      try (InputStream in = new FileInputStream(file)) {
+        prop.load(in);
+      }
+      prop.getProperty(key);
+    }
+  }
+}
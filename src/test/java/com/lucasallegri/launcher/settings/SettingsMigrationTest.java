@@ -0,0 +1,40 @@
+package com.lucasallegri.launcher.settings;
+
+import org.junit.*;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class SettingsMigrationTest {
+
+  @Test
+  public void oldValuesOverrideNewDefaults() {
+    Properties old = props("PROP_VER", "19", "game.memory", "2048", "custom.key", "kept");
+    Properties base = props("PROP_VER", "21", "game.memory", "512", "modloader.dryRun", "false");
+
+    Properties migrated = SettingsMigration.migrate(old, base, 21);
+    assertEquals("21", migrated.getProperty("PROP_VER"));
+    assertEquals("2048", migrated.getProperty("game.memory"));
+    assertEquals("false", migrated.getProperty("modloader.dryRun"));
+    assertEquals("kept", migrated.getProperty("custom.key"));
+  }
+
+  @Test
+  public void onlyStepsAfterTheOldVersionRun() {
+    Properties base = props("PROP_VER", "21");
+
+    Properties fromOld = SettingsMigration.migrate(props("PROP_VER", "20", "modloader.lastModCount", "3"), base, 21);
+    assertNull(fromOld.getProperty("modloader.lastModCount"));
+
+    // Already past the step, whatever it would have removed is left alone.
+    Properties fromNew = SettingsMigration.migrate(props("PROP_VER", "21", "modloader.lastModCount", "3"), base, 21);
+    assertEquals("3", fromNew.getProperty("modloader.lastModCount"));
+  }
+
+  private static Properties props(String... pairs) {
+    Properties prop = new Properties();
+    for (int i = 0; i < pairs.length; i += 2) prop.setProperty(pairs[i], pairs[i + 1]);
+    return prop;
+  }
+}
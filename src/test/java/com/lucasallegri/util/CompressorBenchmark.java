@@ -0,0 +1,68 @@
+package com.lucasallegri.util;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compares mod fingerprinting against the old per-entry MD5 hash on a large synthetic mod.
+ * Run manually: {@code java com.lucasallegri.util.CompressorBenchmark [entries] [entryKb]}
+ */
+public class CompressorBenchmark {
+
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) throws Exception {
+    int entries = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+    int entryKb = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+    File mod = Files.createTempFile("benchmark-mod", ".zip").toFile();
+    mod.deleteOnExit();
+    Random random = new Random(0);
+    byte[] data = new byte[entryKb * 1024];
+    try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(mod)))) {
+      for (int i = 0; i < entries; i++) {
+        random.nextBytes(data);
+        out.putNextEntry(new ZipEntry("rsrc/benchmark/" + (i % 32) + "/entry" + i + ".dat"));
+        out.write(data);
+      }
+    }
+    System.out.println("Mod: " + entries + " entries, " + (mod.length() >> 20) + " MB");
+
+    for (int round = 0; round < ROUNDS; round++) {
+      long legacy = time(() -> legacyZipHash(mod.getPath()));
+      long central = time(() -> Compressor.getZipFingerprint(mod.getPath(), false));
+      long deep = time(() -> Compressor.getZipFingerprint(mod.getPath(), true));
+      System.out.println("Round " + round + ": legacy=" + legacy + "ms central=" + central + "ms deep=" + deep + "ms");
+    }
+  }
+
+  private static long time(Runnable task) {
+    long start = System.nanoTime();
+    task.run();
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  /**
+   * The getZipHash implementation this replaced, kept here as the baseline.
+   */
+  private static String legacyZipHash(String source) {
+    String hash = null;
+    try (ZipInputStream stream = new ZipInputStream(new FileInputStream(source))) {
+      while (stream.getNextEntry() != null) {
+        DigestInputStream dis = new DigestInputStream(stream, MessageDigest.getInstance("MD5"));
+        byte[] buffer = new byte[4096];
+        while (dis.read(buffer) > -1) ;
+        hash = new String(dis.getMessageDigest().digest());
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    return hash;
+  }
+}
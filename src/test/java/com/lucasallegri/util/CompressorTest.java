@@ -0,0 +1,74 @@
+package com.lucasallegri.util;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class CompressorTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void fingerprintSeesEveryEntry() throws Exception {
+    String a = zip("a.zip", "mod.json", "{}", "texture.png", "one", "model.dat", "two");
+    String b = zip("b.zip", "mod.json", "{}", "texture.png", "ONE", "model.dat", "two");
+    assertNotEquals(Compressor.getZipHash(a), Compressor.getZipHash(b));
+  }
+
+  @Test
+  public void fingerprintIgnoresEntryOrder() throws Exception {
+    String a = zip("a.zip", "texture.png", "one", "model.dat", "two");
+    String b = zip("b.zip", "model.dat", "two", "texture.png", "one");
+    assertEquals(Compressor.getZipHash(a), Compressor.getZipHash(b));
+    assertEquals(Compressor.getZipFingerprint(a, true), Compressor.getZipFingerprint(b, true));
+  }
+
+  @Test
+  public void fingerprintOfMissingArchiveIsNull() {
+    assertNull(Compressor.getZipHash(new File(folder.getRoot(), "missing.zip").getPath()));
+  }
+
+  @Test
+  public void channelUnzipExtractsStoredAndDeflatedEntries() throws Exception {
+    File source = folder.newFile("mixed.zip");
+    byte[] stored = "stored content".getBytes(StandardCharsets.UTF_8);
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(source))) {
+      out.putNextEntry(new ZipEntry("nested/deflated.txt"));
+      out.write("deflated content".getBytes(StandardCharsets.UTF_8));
+      ZipEntry entry = new ZipEntry("stored.txt");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(stored.length);
+      CRC32 crc = new CRC32();
+      crc.update(stored);
+      entry.setCrc(crc.getValue());
+      out.putNextEntry(entry);
+      out.write(stored);
+    }
+
+    File dest = folder.newFolder("out");
+    assertTrue(ZipChannelExtractor.extract(source, dest));
+    assertEquals("deflated content", new String(Files.readAllBytes(new File(dest, "nested/deflated.txt").toPath()), StandardCharsets.UTF_8));
+    assertEquals("stored content", new String(Files.readAllBytes(new File(dest, "stored.txt").toPath()), StandardCharsets.UTF_8));
+  }
+
+  private String zip(String name, String... contents) throws Exception {
+    File file = folder.newFile(name);
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+      for (int i = 0; i < contents.length; i += 2) {
+        out.putNextEntry(new ZipEntry(contents[i]));
+        out.write(contents[i + 1].getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return file.getPath();
+  }
+}